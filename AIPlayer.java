@@ -1,154 +1,336 @@
 package ashes;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
+/**
+ * The computer opponent. chooseMove(), startPondering() and shutdown() must be
+ * called from one thread at a time (the app's AI executor), which also owns all
+ * search bookkeeping; stop() may be called from any thread. A ponder thread only
+ * runs the workers and hands its result back through its Future.
+ */
 public class AIPlayer {
     private ChessEngine engine;
     private int searchDepth;
     private Random rng;
 
-    private static final int PAWN_VALUE = 100;
-    private static final int KNIGHT_VALUE = 320;
-    private static final int BISHOP_VALUE = 330;
-    private static final int ROOK_VALUE = 500;
-    private static final int QUEEN_VALUE = 900;
-    private static final int KING_VALUE = 20000;
+    private static final int DEFAULT_HASH_MB = 16;
+    private static final long DEFAULT_TIME_LIMIT_MS = 3000;
+    private static final int DEFAULT_EVAL_CACHE_MB = 4;
+
+    private final TranspositionTable tt;
+    private EvalCache evalCache = new EvalCache(DEFAULT_EVAL_CACHE_MB);
+    private SearchWorker[] workers;
+    private ExecutorService helperPool;
+    private SearchWorker lastResult;
+    private volatile SearchWorker.Control currentSearch;
+    /** Set by stop() until the next chooseMove(); keeps a queued startPondering() from running. */
+    private volatile boolean cancelled;
+
+    private boolean ponderEnabled = true;
+    private ExecutorService ponderThread;
+    private Future<SearchWorker> ponderTask;
+    private volatile SearchWorker.Control ponderControl;
+    private long ponderKey;
+
+    private long timeLimitMs = DEFAULT_TIME_LIMIT_MS;
+    private long nodeLimit;
+    private boolean quiescenceChecks = true;
+    private Supplier<Evaluator> evaluatorFactory = defaultEvaluator();
 
     public AIPlayer(ChessEngine engine, int searchDepth) {
+        this(engine, searchDepth, DEFAULT_HASH_MB);
+    }
+
+    public AIPlayer(ChessEngine engine, int searchDepth, int hashSizeMb) {
         this.engine = engine;
         this.searchDepth = searchDepth;
         this.rng = new Random();
+        this.tt = new TranspositionTable(hashSizeMb);
+        setThreads(Runtime.getRuntime().availableProcessors());
     }
 
-    public Move chooseMove(GameState state) {
-        List<Move> legalMoves = getAllLegalMoves(state, false);
-        if (legalMoves.isEmpty()) {
-            return null;
-        }
-        Move bestMove = null;
-        int bestScore = Integer.MIN_VALUE;
-        int alpha = Integer.MIN_VALUE;
-        int beta = Integer.MAX_VALUE;
-        for (Move move : legalMoves) {
-            GameState newState = simulateMove(state, move);
-            int score = minimax(newState, searchDepth - 1, alpha, beta, false);
-            if (score > bestScore) {
-                bestScore = score;
-                bestMove = move;
-            }
-            alpha = Math.max(alpha, score);
+    /** Hard upper bound on one chooseMove() call; 0 disables the clock. */
+    public void setTimeLimit(long millis) { this.timeLimitMs = millis; }
+
+    /** Node budget per chooseMove() call, summed over all threads; 0 means unlimited. */
+    public void setNodeLimit(long nodes) { this.nodeLimit = nodes; }
+
+    /**
+     * Number of search threads (Lazy SMP). One searches on the calling thread, the
+     * others are helpers sharing the transposition table. Defaults to the number of
+     * available processors.
+     */
+    public void setThreads(int threads) {
+        shutdown();
+        workers = new SearchWorker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new SearchWorker(i, tt, evalCache, evaluatorFactory.get());
+            workers[i].setQuiescenceCheckEvasions(quiescenceChecks);
         }
-        return bestMove;
+        lastResult = null;
+    }
+
+    public int getThreads() { return workers.length; }
+
+    /**
+     * Static evaluation for the search. Called once per search thread, since an
+     * evaluator may keep per-thread incremental state. Defaults to ClassicalEvaluator,
+     * or to NnueEvaluator when -Dashes.nnue names a network file.
+     */
+    public void setEvaluator(Supplier<Evaluator> factory) {
+        this.evaluatorFactory = factory;
+        if (evalCache != null) evalCache.clear();
+        setThreads(workers.length);
+    }
+
+    /** NnueEvaluator when -Dashes.nnue names a loadable network, ClassicalEvaluator otherwise. */
+    private static Supplier<Evaluator> defaultEvaluator() {
+        NnueNetwork net = NnueNetwork.fromProperty();
+        if (net == null) return ClassicalEvaluator::new;
+        return () -> new NnueEvaluator(net);
     }
 
-    private int minimax(GameState state, int depth, int alpha, int beta, boolean maximizing) {
-        if (depth == 0 || state.gameOver) {
-            return evaluatePosition(state);
+    /** Size of the evaluation cache shared by the search threads; 0 turns it off. */
+    public void setEvalCacheSize(int sizeMb) {
+        evalCache = sizeMb > 0 ? new EvalCache(sizeMb) : null;
+        setThreads(workers.length);
+    }
+
+    /** Evaluation cache hits in the last chooseMove(), over all threads. */
+    public long getLastEvalCacheHits() { return evalCache == null ? 0 : evalCache.hits(); }
+
+    /** Evaluation cache misses in the last chooseMove(), over all threads. */
+    public long getLastEvalCacheMisses() { return evalCache == null ? 0 : evalCache.misses(); }
+
+    /** Whether startPondering() searches on the opponent's time. On by default. */
+    public void setPonder(boolean enabled) { this.ponderEnabled = enabled; }
+
+    /**
+     * Stops any ponder search and releases the helper threads; a later chooseMove()
+     * starts them again. Call it from the thread that calls chooseMove(), once no
+     * search is running there.
+     */
+    public void shutdown() {
+        stopPondering();
+        if (ponderThread != null) {
+            ponderThread.shutdown();
+            ponderThread = null;
         }
-        List<Move> moves = getAllLegalMoves(state, !maximizing);
-        if (moves.isEmpty()) {
-            return evaluatePosition(state);
+        if (helperPool != null) {
+            helperPool.shutdown();
+            helperPool = null;
         }
-        if (maximizing) {
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : moves) {
-                GameState newState = simulateMove(state, move);
-                int eval = minimax(newState, depth - 1, alpha, beta, false);
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha) break;
-            }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : moves) {
-                GameState newState = simulateMove(state, move);
-                int eval = minimax(newState, depth - 1, alpha, beta, true);
-                minEval = Math.min(minEval, eval);
-                beta = Math.min(beta, eval);
-                if (beta <= alpha) break;
+    }
+
+    /**
+     * Asks a chooseMove() running on another thread to return as soon as possible,
+     * with the best move found so far, and abandons a ponder search. Does nothing
+     * when no search is running.
+     */
+    public void stop() {
+        cancelled = true;
+        SearchWorker.Control ponder = ponderControl;
+        if (ponder != null) ponder.stop = true;
+        ponderControl = null;
+        SearchWorker.Control control = currentSearch;
+        if (control != null) control.stop = true;
+    }
+
+    /** Nodes visited by the last chooseMove() over all threads, quiescence nodes included. */
+    public long getLastNodeCount() {
+        long n = 0;
+        for (SearchWorker w : workers) n += w.nodes();
+        return n;
+    }
+
+    /** The part of getLastNodeCount() spent in quiescence search. */
+    public long getLastQuiescenceNodeCount() {
+        long n = 0;
+        for (SearchWorker w : workers) n += w.quiescenceNodes();
+        return n;
+    }
+
+    /**
+     * Share of pawn hash probes in the last chooseMove() that were hits, over all
+     * threads, or -1 when the evaluator keeps no pawn table.
+     */
+    public double getLastPawnHashHitRate() {
+        long hits = 0;
+        long probes = 0;
+        for (SearchWorker w : workers) {
+            if (w.evaluator() instanceof ClassicalEvaluator) {
+                PawnTable table = ((ClassicalEvaluator) w.evaluator()).pawnTable();
+                hits += table.hits();
+                probes += table.probes();
             }
-            return minEval;
         }
+        return probes == 0 ? -1 : (double) hits / probes;
+    }
+
+    /** Whether quiescence search also resolves checks by searching all evasions. */
+    public void setQuiescenceCheckEvasions(boolean enabled) {
+        this.quiescenceChecks = enabled;
+        for (SearchWorker w : workers) w.setQuiescenceCheckEvasions(enabled);
     }
 
-    private int evaluatePosition(GameState state) {
-        int score = 0;
+    public int getLastCompletedDepth() { return lastResult == null ? 0 : lastResult.completedDepth(); }
 
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece piece = state.board[r][c];
-                if (piece != null) {
-                    int value = getPieceValue(piece);
-                    score += piece.isWhite() ? -value : value;
-                }
-            }
+    /** Principal variation of the last completed iteration, starting with the move to play. */
+    public List<Move> getPrincipalVariation() {
+        List<Move> pv = new ArrayList<>();
+        if (lastResult == null) return pv;
+        for (int i = 0; i < lastResult.pvLength(); i++) {
+            pv.add(PackedMove.toMove(lastResult.pvMove(i)));
         }
+        return pv;
+    }
 
-        int whiteMobility = getAllLegalMoves(state, true).size();
-        int blackMobility = getAllLegalMoves(state, false).size();
-        score += (blackMobility - whiteMobility) * 10;
-
-        score += evaluateCenterControl(state);
-        return score;
-    }
-
-    private int getPieceValue(Piece piece) {
-        if (piece instanceof Pawn) return PAWN_VALUE;
-        if (piece instanceof Knight) return KNIGHT_VALUE;
-        if (piece instanceof Bishop) return BISHOP_VALUE;
-        if (piece instanceof Rook) return ROOK_VALUE;
-        if (piece instanceof Queen) return QUEEN_VALUE;
-        if (piece instanceof King) return KING_VALUE;
-        return 0;
-    }
-
-    private int evaluateCenterControl(GameState state) {
-        int score = 0;
-        int[] centerRows = {3, 4};
-        int[] centerCols = {3, 4};
-        for (int r : centerRows) {
-            for (int c : centerCols) {
-                Piece piece = state.board[r][c];
-                if (piece != null) {
-                    score += piece.isWhite() ? -20 : 20;
-                }
-            }
+    /**
+     * Starts searching, in the background, the position that arises if the opponent
+     * plays the reply expected by the last search (the second move of its principal
+     * variation). state is the position after our move, with the opponent to move.
+     * The ponder search ignores the clock until the next chooseMove(): if the
+     * opponent played the expected move it becomes that call's search, otherwise it
+     * is stopped and only the table entries it left are kept. Returns whether a
+     * ponder search was started; never after stop(), until the next chooseMove().
+     */
+    public boolean startPondering(GameState state) {
+        stopPondering();
+        if (cancelled || !ponderEnabled || lastResult == null || lastResult.pvLength() < 2) return false;
+        BitboardPosition pos = BitboardPosition.fromGameState(state);
+        int expected = lastResult.pvMove(1);
+        MoveList replies = new MoveList();
+        MoveGenerator.generateLegalMoves(pos, replies);
+        if (!replies.contains(expected)) return false;
+        pos.makeMove(expected);
+
+        SearchWorker.Control control = new SearchWorker.Control(System.currentTimeMillis(), timeLimitMs, nodeLimit);
+        control.pondering = true;
+        if (ponderThread == null) {
+            ponderThread = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "ai-ponder");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        prepareSearch();
+        ponderKey = pos.key();
+        ponderControl = control;
+        // A stop() that read ponderControl before it was set would otherwise be missed.
+        if (cancelled) control.stop = true;
+        ponderTask = ponderThread.submit(() -> runWorkers(pos, control));
+        return true;
+    }
+
+    /**
+     * Iterative deepening up to searchDepth within the time and node budget. With
+     * several threads, helpers search the same root alongside the calling thread
+     * and are stopped when it finishes; the deepest completed result wins, ties
+     * going to the calling thread. A ponder search on this position is taken over
+     * rather than restarted, with its time counted from when pondering began.
+     */
+    public Move chooseMove(GameState state) {
+        cancelled = false;
+        long start = System.currentTimeMillis();
+        BitboardPosition pos = BitboardPosition.fromGameState(state);
+        SearchWorker.Control ponder = ponderControl;
+        if (ponderTask != null && ponder != null && pos.key() == ponderKey) {
+            ponder.ponderHit();
+            currentSearch = ponder;
+            SearchWorker best = awaitPonder();
+            currentSearch = null;
+            if (best != null) return finish(best);
         }
-        return score;
+        stopPondering();
+        SearchWorker.Control control = new SearchWorker.Control(start, timeLimitMs, nodeLimit);
+        prepareSearch();
+        currentSearch = control;
+        // A stop() that came before currentSearch was set would otherwise be missed.
+        if (cancelled) control.stop = true;
+        SearchWorker best = runWorkers(pos, control);
+        currentSearch = null;
+        return finish(best);
     }
 
-    private List<Move> getAllLegalMoves(GameState state, boolean forWhite) {
-        List<Move> moves = new ArrayList<>();
+    /** Stops a ponder search that missed and waits for its threads to come back. */
+    private void stopPondering() {
+        SearchWorker.Control ponder = ponderControl;
+        ponderControl = null;
+        if (ponder != null) ponder.stop = true;
+        if (ponderTask != null) awaitPonder();
+    }
 
-        ChessEngine tempEngine = new ChessEngine(state);
+    private SearchWorker awaitPonder() {
+        Future<SearchWorker> task = ponderTask;
+        ponderTask = null;
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CancellationException e) {
+            // The ponder thread was shut down before the search started.
+        } catch (ExecutionException e) {
+            System.err.println("AI ponder search failed: " + e.getCause());
+        }
+        return null;
+    }
 
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece piece = state.board[r][c];
-                if (piece != null && piece.isWhite() == forWhite) {
-                    List<Move> pieceMoves = piece.generateLegalMoves(r, c, tempEngine);
-                    for (Move move : pieceMoves) {
-                        if (tempEngine.isMoveLegal(move)) {
-                            moves.add(move);
-                        }
-                    }
-                }
-            }
+    /** Readies the shared tables and the helper pool; runs on the caller before any search. */
+    private void prepareSearch() {
+        tt.newSearch();
+        if (evalCache != null) evalCache.resetStats();
+        if (workers.length > 1 && helperPool == null) {
+            helperPool = Executors.newFixedThreadPool(workers.length - 1, r -> {
+                Thread t = new Thread(r, "ai-search-helper");
+                t.setDaemon(true);
+                return t;
+            });
         }
-        return moves;
     }
 
-    private GameState simulateMove(GameState state, Move move) {
-        GameState newState = state.copy();
-        Piece piece = newState.board[move.fromRow][move.fromCol];
-        Piece captured = newState.board[move.toRow][move.toCol];
-        newState.board[move.toRow][move.toCol] = piece;
-        newState.board[move.fromRow][move.fromCol] = null;
-        if (captured != null) {
-            move.isCapture = true;
+    private Move finish(SearchWorker best) {
+        lastResult = best;
+        return best.bestMove() == PackedMove.NONE ? null : PackedMove.toMove(best.bestMove());
+    }
+
+    /**
+     * Runs the workers on pos and returns the one with the deepest result. Writes no
+     * AIPlayer fields and reads only those set before it was submitted, so it may run
+     * on the ponder thread.
+     */
+    private SearchWorker runWorkers(BitboardPosition pos, SearchWorker.Control control) {
+        List<Future<?>> helpers = new ArrayList<>();
+        if (workers.length > 1) {
+            for (int i = 1; i < workers.length; i++) {
+                SearchWorker helper = workers[i];
+                helpers.add(helperPool.submit(() -> helper.think(pos, searchDepth, control)));
+            }
+        }
+        workers[0].think(pos, searchDepth, control);
+        control.stop = true;
+        SearchWorker best = workers[0];
+        for (int i = 0; i < helpers.size(); i++) {
+            SearchWorker w = workers[i + 1];
+            try {
+                helpers.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                continue;
+            } catch (CancellationException e) {
+                // Dropped from a pool that was shut down; the worker holds an old result.
+                continue;
+            } catch (ExecutionException e) {
+                System.err.println("AI helper search failed: " + e.getCause());
+                continue;
+            }
+            if (w.bestMove() != PackedMove.NONE && w.completedDepth() > best.completedDepth()) best = w;
         }
-        newState.whiteToMove = !newState.whiteToMove;
-        return newState;
+        return best;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,450 @@
+package ashes;
+
+/**
+ * Bitboard-backed chess position used by the engine core and the AI search.
+ * Keeps one mask per piece type, one per color and the total occupancy, plus a
+ * 64-entry mailbox for fast "what stands here" lookups. Converts losslessly to and
+ * from the positional part of a GameState (board, side to move, castling flags,
+ * en passant target and banned square).
+ */
+public final class BitboardPosition {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    /** Mailbox value of an empty square. Occupied squares hold {@code type | color << 3}. */
+    public static final int EMPTY = -1;
+
+    /** Castling bookkeeping, one bit per GameState "moved" flag. */
+    public static final int WHITE_KING_MOVED = 1;
+    public static final int WHITE_KINGSIDE_ROOK_MOVED = 2;
+    public static final int WHITE_QUEENSIDE_ROOK_MOVED = 4;
+    public static final int BLACK_KING_MOVED = 8;
+    public static final int BLACK_KINGSIDE_ROOK_MOVED = 16;
+    public static final int BLACK_QUEENSIDE_ROOK_MOVED = 32;
+
+    /** Centipawn piece values used for the incremental material totals; kings count zero. */
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    final long[] pieces = new long[6];
+    final long[] colors = new long[2];
+    long occupied;
+    final int[] board = new int[64];
+    final int[] material = new int[2];
+    /** Per-side middlegame and endgame sums of PieceSquareTables, kept like material. */
+    final int[] psqMg = new int[2];
+    final int[] psqEg = new int[2];
+    /** Game phase: PieceSquareTables.phase() summed over the pieces on the board. */
+    int phase;
+
+    int sideToMove;
+    int movedFlags;
+    int enPassantSquare = -1;
+    int bannedSquare = -1;
+    /** Zobrist key, kept incrementally by putPiece/removePiece and make/unmake. */
+    long key;
+    /** Zobrist key of the pawns alone, for the pawn hash table. */
+    long pawnKey;
+
+    private int[] undoCaptured = new int[128];
+    private int[] undoMovedFlags = new int[128];
+    private int[] undoEnPassant = new int[128];
+    private long[] undoKey = new long[128];
+    private int undoSize;
+
+    public BitboardPosition() {
+        java.util.Arrays.fill(board, EMPTY);
+    }
+
+    public static BitboardPosition fromGameState(GameState state) {
+        BitboardPosition pos = new BitboardPosition();
+        pos.load(state);
+        return pos;
+    }
+
+    /** Replaces this position with the positional part of the given state, in place. */
+    public void load(GameState state) {
+        java.util.Arrays.fill(pieces, 0L);
+        colors[WHITE] = 0L;
+        colors[BLACK] = 0L;
+        occupied = 0L;
+        java.util.Arrays.fill(board, EMPTY);
+        material[WHITE] = 0;
+        material[BLACK] = 0;
+        psqMg[WHITE] = 0;
+        psqMg[BLACK] = 0;
+        psqEg[WHITE] = 0;
+        psqEg[BLACK] = 0;
+        phase = 0;
+        key = 0L;
+        pawnKey = 0L;
+        undoSize = 0;
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                Piece p = state.board[r][c];
+                if (p != null) {
+                    putPiece(Bitboards.square(r, c), typeOf(p), p.isWhite() ? WHITE : BLACK);
+                }
+            }
+        }
+        sideToMove = state.whiteToMove ? WHITE : BLACK;
+        enPassantSquare = squareIndex(state.enPassantTarget);
+        bannedSquare = squareIndex(state.bannedSquare);
+        movedFlags = state.getMovedFlags();
+        key ^= stateKey();
+    }
+
+    /**
+     * Writes this position into the board and rule fields of the given state.
+     * Non-positional fields (gold, round, counters, history) are left untouched.
+     */
+    public void copyTo(GameState state) {
+        for (int sq = 0; sq < 64; sq++) {
+            int code = board[sq];
+            state.board[Bitboards.row(sq)][Bitboards.col(sq)] =
+                code == EMPTY ? null : createPiece(code & 7, (code >>> 3) == WHITE);
+        }
+        state.whiteToMove = sideToMove == WHITE;
+        state.enPassantTarget = toSquare(enPassantSquare);
+        state.bannedSquare = toSquare(bannedSquare);
+        state.whiteKingMoved = (movedFlags & WHITE_KING_MOVED) != 0;
+        state.whiteKingsideRookMoved = (movedFlags & WHITE_KINGSIDE_ROOK_MOVED) != 0;
+        state.whiteQueensideRookMoved = (movedFlags & WHITE_QUEENSIDE_ROOK_MOVED) != 0;
+        state.blackKingMoved = (movedFlags & BLACK_KING_MOVED) != 0;
+        state.blackKingsideRookMoved = (movedFlags & BLACK_KINGSIDE_ROOK_MOVED) != 0;
+        state.blackQueensideRookMoved = (movedFlags & BLACK_QUEENSIDE_ROOK_MOVED) != 0;
+        state.rebuildIndexes();
+    }
+
+    public BitboardPosition copy() {
+        BitboardPosition p = new BitboardPosition();
+        p.copyFrom(this);
+        return p;
+    }
+
+    public void copyFrom(BitboardPosition other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, 6);
+        System.arraycopy(other.colors, 0, colors, 0, 2);
+        System.arraycopy(other.board, 0, board, 0, 64);
+        material[WHITE] = other.material[WHITE];
+        material[BLACK] = other.material[BLACK];
+        psqMg[WHITE] = other.psqMg[WHITE];
+        psqMg[BLACK] = other.psqMg[BLACK];
+        psqEg[WHITE] = other.psqEg[WHITE];
+        psqEg[BLACK] = other.psqEg[BLACK];
+        phase = other.phase;
+        occupied = other.occupied;
+        sideToMove = other.sideToMove;
+        movedFlags = other.movedFlags;
+        enPassantSquare = other.enPassantSquare;
+        bannedSquare = other.bannedSquare;
+        key = other.key;
+        pawnKey = other.pawnKey;
+        undoSize = 0;
+    }
+
+    /**
+     * Plays a packed move in place. The move must be legal in this position
+     * (as produced by MoveGenerator); undo it with unmakeMove(move).
+     */
+    public void makeMove(int move) {
+        ensureUndoCapacity();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        int us = sideToMove;
+        int type = board[from] & 7;
+        undoKey[undoSize] = key;
+        key ^= stateKey();
+
+        int captured = EMPTY;
+        if (flags == PackedMove.EN_PASSANT) {
+            int capSq = (from & ~7) | (to & 7);
+            captured = board[capSq];
+            removePiece(capSq);
+        } else if ((flags & PackedMove.CAPTURE) != 0) {
+            captured = board[to];
+            removePiece(to);
+        }
+        undoCaptured[undoSize] = captured;
+        undoMovedFlags[undoSize] = movedFlags;
+        undoEnPassant[undoSize] = enPassantSquare;
+        undoSize++;
+
+        removePiece(from);
+        putPiece(to, (flags & PackedMove.PROMOTION) != 0 ? PackedMove.promotionType(move) : type, us);
+
+        if (flags == PackedMove.CASTLE) {
+            int base = to & ~7;
+            if ((to & 7) == 6) {
+                removePiece(base + 7);
+                putPiece(base + 5, ROOK, us);
+            } else {
+                removePiece(base);
+                putPiece(base + 3, ROOK, us);
+            }
+        }
+
+        updateMovedFlags(from, to, type, us, captured != EMPTY);
+
+        enPassantSquare = flags == PackedMove.DOUBLE_PUSH ? (from + to) >>> 1 : -1;
+        sideToMove = us ^ 1;
+        key ^= stateKey();
+        if (Zobrist.DEBUG) {
+            Zobrist.verify(key, Zobrist.compute(this), "BitboardPosition.makeMove");
+            Zobrist.verify(pawnKey, Zobrist.computePawnKey(this), "BitboardPosition.makeMove (pawns)");
+        }
+    }
+
+    public void unmakeMove(int move) {
+        undoSize--;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        int us = sideToMove ^ 1;
+        sideToMove = us;
+
+        int type = (flags & PackedMove.PROMOTION) != 0 ? PAWN : board[to] & 7;
+        removePiece(to);
+        putPiece(from, type, us);
+
+        if (flags == PackedMove.CASTLE) {
+            int base = to & ~7;
+            if ((to & 7) == 6) {
+                removePiece(base + 5);
+                putPiece(base + 7, ROOK, us);
+            } else {
+                removePiece(base + 3);
+                putPiece(base, ROOK, us);
+            }
+        }
+
+        int captured = undoCaptured[undoSize];
+        if (captured != EMPTY) {
+            int capSq = flags == PackedMove.EN_PASSANT ? (from & ~7) | (to & 7) : to;
+            putPiece(capSq, captured & 7, captured >>> 3);
+        }
+        movedFlags = undoMovedFlags[undoSize];
+        enPassantSquare = undoEnPassant[undoSize];
+        key = undoKey[undoSize];
+        if (Zobrist.DEBUG) {
+            Zobrist.verify(key, Zobrist.compute(this), "BitboardPosition.unmakeMove");
+            Zobrist.verify(pawnKey, Zobrist.computePawnKey(this), "BitboardPosition.unmakeMove (pawns)");
+        }
+    }
+
+    /**
+     * Passes the turn without moving, for null-move pruning: only the side to move
+     * and the en passant target change. Undo with unmakeNullMove().
+     */
+    public void makeNullMove() {
+        ensureUndoCapacity();
+        undoCaptured[undoSize] = EMPTY;
+        undoMovedFlags[undoSize] = movedFlags;
+        undoEnPassant[undoSize] = enPassantSquare;
+        undoKey[undoSize] = key;
+        undoSize++;
+        key ^= stateKey();
+        enPassantSquare = -1;
+        sideToMove ^= 1;
+        key ^= stateKey();
+        if (Zobrist.DEBUG) Zobrist.verify(key, Zobrist.compute(this), "BitboardPosition.makeNullMove");
+    }
+
+    public void unmakeNullMove() {
+        undoSize--;
+        sideToMove ^= 1;
+        enPassantSquare = undoEnPassant[undoSize];
+        key = undoKey[undoSize];
+    }
+
+    private void ensureUndoCapacity() {
+        if (undoSize == undoCaptured.length) {
+            int n = undoSize * 2;
+            undoCaptured = java.util.Arrays.copyOf(undoCaptured, n);
+            undoMovedFlags = java.util.Arrays.copyOf(undoMovedFlags, n);
+            undoEnPassant = java.util.Arrays.copyOf(undoEnPassant, n);
+            undoKey = java.util.Arrays.copyOf(undoKey, n);
+        }
+    }
+
+    private long stateKey() {
+        return Zobrist.stateKey(sideToMove, movedFlags, enPassantSquare, bannedSquare);
+    }
+
+    /** Same castling bookkeeping as ChessEngine.updateCastlingRights. */
+    private void updateMovedFlags(int from, int to, int type, int us, boolean capture) {
+        if (type == KING) {
+            movedFlags |= us == WHITE ? WHITE_KING_MOVED : BLACK_KING_MOVED;
+        } else if (type == ROOK) {
+            int col = from & 7;
+            if (col == 7) movedFlags |= us == WHITE ? WHITE_KINGSIDE_ROOK_MOVED : BLACK_KINGSIDE_ROOK_MOVED;
+            if (col == 0) movedFlags |= us == WHITE ? WHITE_QUEENSIDE_ROOK_MOVED : BLACK_QUEENSIDE_ROOK_MOVED;
+        }
+        if (capture) {
+            if (to == 63) movedFlags |= WHITE_KINGSIDE_ROOK_MOVED;
+            else if (to == 56) movedFlags |= WHITE_QUEENSIDE_ROOK_MOVED;
+            else if (to == 7) movedFlags |= BLACK_KINGSIDE_ROOK_MOVED;
+            else if (to == 0) movedFlags |= BLACK_QUEENSIDE_ROOK_MOVED;
+        }
+    }
+
+    void putPiece(int sq, int type, int color) {
+        long b = Bitboards.bit(sq);
+        pieces[type] |= b;
+        colors[color] |= b;
+        occupied |= b;
+        board[sq] = type | (color << 3);
+        material[color] += PIECE_VALUES[type];
+        psqMg[color] += PieceSquareTables.mg(color, type, sq);
+        psqEg[color] += PieceSquareTables.eg(color, type, sq);
+        phase += PieceSquareTables.phase(type);
+        key ^= Zobrist.piece(color, type, sq);
+        if (type == PAWN) pawnKey ^= Zobrist.piece(color, PAWN, sq);
+    }
+
+    void removePiece(int sq) {
+        int code = board[sq];
+        if (code == EMPTY) return;
+        long b = ~Bitboards.bit(sq);
+        pieces[code & 7] &= b;
+        colors[code >>> 3] &= b;
+        occupied &= b;
+        board[sq] = EMPTY;
+        material[code >>> 3] -= PIECE_VALUES[code & 7];
+        psqMg[code >>> 3] -= PieceSquareTables.mg(code >>> 3, code & 7, sq);
+        psqEg[code >>> 3] -= PieceSquareTables.eg(code >>> 3, code & 7, sq);
+        phase -= PieceSquareTables.phase(code & 7);
+        key ^= Zobrist.piece(code >>> 3, code & 7, sq);
+        if ((code & 7) == PAWN) pawnKey ^= Zobrist.piece(code >>> 3, PAWN, sq);
+    }
+
+    public int pieceAt(int sq) { return board[sq]; }
+
+    public static int typeOfCode(int code) { return code & 7; }
+
+    public static int colorOfCode(int code) { return code >>> 3; }
+
+    public long pieces(int type) { return pieces[type]; }
+
+    public long pieces(int color, int type) { return pieces[type] & colors[color]; }
+
+    public long occupancy(int color) { return colors[color]; }
+
+    public long occupied() { return occupied; }
+
+    public int sideToMove() { return sideToMove; }
+
+    public int enPassantSquare() { return enPassantSquare; }
+
+    public int bannedSquare() { return bannedSquare; }
+
+    public int movedFlags() { return movedFlags; }
+
+    public long key() { return key; }
+
+    /** Zobrist key of the pawn placement only; equal pawn structures share it. */
+    public long pawnKey() { return pawnKey; }
+
+    /** Incrementally maintained material of one side in centipawns. */
+    public int material(int color) { return material[color]; }
+
+    /** Incrementally maintained middlegame piece-square bonus of one side in centipawns. */
+    public int psqMg(int color) { return psqMg[color]; }
+
+    /** Incrementally maintained endgame piece-square bonus of one side in centipawns. */
+    public int psqEg(int color) { return psqEg[color]; }
+
+    /** Incrementally maintained game phase; see PieceSquareTables.taper(). */
+    public int phase() { return phase; }
+
+    public int pieceCount(int color, int type) { return Bitboards.popCount(pieces[type] & colors[color]); }
+
+    /** Square of the given side's king, or -1 if it has none. */
+    public int kingSquare(int color) {
+        long k = pieces[KING] & colors[color];
+        return k == 0 ? -1 : Bitboards.lsb(k);
+    }
+
+    /** All pieces of both colors attacking sq, given an occupancy for the slider rays. */
+    public long attackersTo(int sq, long occupied) {
+        return (Bitboards.PAWN_ATTACKS[BLACK][sq] & pieces[PAWN] & colors[WHITE])
+            | (Bitboards.PAWN_ATTACKS[WHITE][sq] & pieces[PAWN] & colors[BLACK])
+            | (Bitboards.KNIGHT_ATTACKS[sq] & pieces[KNIGHT])
+            | (Bitboards.KING_ATTACKS[sq] & pieces[KING])
+            | (SlidingAttacks.rookAttacks(sq, occupied) & (pieces[ROOK] | pieces[QUEEN]))
+            | (SlidingAttacks.bishopAttacks(sq, occupied) & (pieces[BISHOP] | pieces[QUEEN]));
+    }
+
+    public boolean isSquareAttacked(int sq, int byColor) {
+        return isSquareAttacked(sq, byColor, occupied);
+    }
+
+    /** Attack test against a hypothetical occupancy, e.g. with the king lifted off its square. */
+    public boolean isSquareAttacked(int sq, int byColor, long occupied) {
+        long them = colors[byColor] & occupied;
+        if ((Bitboards.PAWN_ATTACKS[byColor ^ 1][sq] & pieces[PAWN] & them) != 0) return true;
+        if ((Bitboards.KNIGHT_ATTACKS[sq] & pieces[KNIGHT] & them) != 0) return true;
+        if ((Bitboards.KING_ATTACKS[sq] & pieces[KING] & them) != 0) return true;
+        long rooks = (pieces[ROOK] | pieces[QUEEN]) & them;
+        if (rooks != 0 && (SlidingAttacks.rookAttacks(sq, occupied) & rooks) != 0) return true;
+        long bishops = (pieces[BISHOP] | pieces[QUEEN]) & them;
+        return bishops != 0 && (SlidingAttacks.bishopAttacks(sq, occupied) & bishops) != 0;
+    }
+
+    public boolean isInCheck(int color) {
+        int k = kingSquare(color);
+        return k < 0 || isSquareAttacked(k, color ^ 1);
+    }
+
+    public static int typeOf(Piece p) {
+        if (p instanceof Pawn) return PAWN;
+        if (p instanceof Knight) return KNIGHT;
+        if (p instanceof Bishop) return BISHOP;
+        if (p instanceof Rook) return ROOK;
+        if (p instanceof Queen) return QUEEN;
+        if (p instanceof King) return KING;
+        throw new IllegalArgumentException("Unknown piece type: " + p.getName());
+    }
+
+    public static Piece createPiece(int type, boolean white) {
+        switch (type) {
+            case PAWN: return Pawn.of(white);
+            case KNIGHT: return Knight.of(white);
+            case BISHOP: return Bishop.of(white);
+            case ROOK: return Rook.of(white);
+            case QUEEN: return Queen.of(white);
+            case KING: return King.of(white);
+            default: throw new IllegalArgumentException("Unknown piece type: " + type);
+        }
+    }
+
+    private static int squareIndex(Square s) {
+        return s == null ? -1 : Bitboards.square(s.row, s.col);
+    }
+
+    private static Square toSquare(int sq) {
+        return sq < 0 ? null : Square.of(sq);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                int code = board[Bitboards.square(r, c)];
+                char ch = code == EMPTY ? '.' : "PNBRQK".charAt(code & 7);
+                sb.append((code != EMPTY && (code >>> 3) == BLACK) ? Character.toLowerCase(ch) : ch);
+            }
+            sb.append('\n');
+        }
+        sb.append(sideToMove == WHITE ? "white" : "black").append(" to move");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package ashes;
+
+/**
+ * Bitboard constants and precomputed leaper attack tables.
+ * Square index is row * 8 + col, the same layout as GameState.board,
+ * so bit 0 is a8 and bit 63 is h1.
+ */
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long ROW_0 = 0xFFL;
+    public static final long ROW_7 = 0xFFL << 56;
+
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    /** PAWN_ATTACKS[color][sq] = squares a pawn of that color on sq attacks. */
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final int[][] KNIGHT_OFFSETS = {
+            {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2},
+            {1, -2}, {1, 2}, {2, -1}, {2, 1}
+        };
+    private static final int[][] KING_OFFSETS = {
+            {-1, -1}, {-1, 0}, {-1, 1}, {0, -1},
+            {0, 1}, {1, -1}, {1, 0}, {1, 1}
+        };
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            int r = row(sq);
+            int c = col(sq);
+            KNIGHT_ATTACKS[sq] = offsets(r, c, KNIGHT_OFFSETS);
+            KING_ATTACKS[sq] = offsets(r, c, KING_OFFSETS);
+            PAWN_ATTACKS[BitboardPosition.WHITE][sq] = offsets(r, c, new int[][]{{-1, -1}, {-1, 1}});
+            PAWN_ATTACKS[BitboardPosition.BLACK][sq] = offsets(r, c, new int[][]{{1, -1}, {1, 1}});
+        }
+    }
+
+    private Bitboards() {}
+
+    private static long offsets(int row, int col, int[][] offsets) {
+        long bb = 0L;
+        for (int[] off : offsets) {
+            int r = row + off[0];
+            int c = col + off[1];
+            if (Square.insideBoard(r, c)) bb |= bit(square(r, c));
+        }
+        return bb;
+    }
+
+    public static int square(int row, int col) { return (row << 3) | col; }
+
+    public static int row(int sq) { return sq >>> 3; }
+
+    public static int col(int sq) { return sq & 7; }
+
+    public static long bit(int sq) { return 1L << sq; }
+
+    public static int lsb(long bb) { return Long.numberOfTrailingZeros(bb); }
+
+    public static int popCount(long bb) { return Long.bitCount(bb); }
+
+    public static boolean contains(long bb, int sq) { return (bb & (1L << sq)) != 0; }
+
+    /** Occupancy mask of a mailbox board. */
+    public static long occupancy(Piece[][] board) {
+        long occ = 0L;
+        for (int r = 0; r < 8; r++) {
+            Piece[] rank = board[r];
+            for (int c = 0; c < 8; c++) {
+                if (rank[c] != null) occ |= 1L << ((r << 3) | c);
+            }
+        }
+        return occ;
+    }
+}
@@ -2,6 +2,7 @@ package ashes;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
@@ -15,6 +16,8 @@ public class BoardViewSwing extends JPanel {
     private int selectedRow = -1;
     private int selectedCol = -1;
     private List<Move> legalMoves;
+    private boolean thinking;
+
     public BoardViewSwing(RoguelikeChessAppSwing app, ChessEngine engine) {
         this.app = app;
         this.engine = engine;
@@ -34,9 +37,17 @@ public class BoardViewSwing extends JPanel {
                     handleBoardClick(row, col);
                 }
             });
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "quitToMenu");
+        getActionMap().put("quitToMenu", new AbstractAction() {
+                @Override
+                public void actionPerformed(java.awt.event.ActionEvent e) {
+                    app.quitToMenu();
+                }
+            });
     }
 
     private void handleBoardClick(int row, int col) {
+        if (thinking) return;
         GameState state = engine.getGameState();
         Piece clickedPiece = state.board[row][col];
         if (selectedRow == -1) {
@@ -72,6 +83,14 @@ public class BoardViewSwing extends JPanel {
         repaint();
     }
 
+    /** Shows the "thinking" overlay and ignores clicks while the AI searches. */
+    public void setThinking(boolean thinking) {
+        this.thinking = thinking;
+        setCursor(Cursor.getPredefinedCursor(thinking ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+        if (thinking) clearSelection();
+        repaint();
+    }
+
     public void refresh() {
         clearSelection();
         repaint();
@@ -83,6 +102,20 @@ public class BoardViewSwing extends JPanel {
         drawBoard(g);
         drawPieces(g);
         drawHighlights(g);
+        if (thinking) drawThinking(g);
+    }
+
+    private void drawThinking(Graphics g) {
+        String text = "Thinking...";
+        g.setFont(new Font("Arial", Font.BOLD, 20));
+        FontMetrics fm = g.getFontMetrics();
+        int w = fm.stringWidth(text) + 24;
+        int h = fm.getHeight() + 12;
+        int x = (BOARD_SIZE - w) / 2;
+        g.setColor(new Color(0, 0, 0, 160));
+        g.fillRoundRect(x, 8, w, h, 12, 12);
+        g.setColor(Color.WHITE);
+        g.drawString(text, x + 12, 8 + 6 + fm.getAscent());
     }
 
     private void drawBoard(Graphics g) {
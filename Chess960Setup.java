@@ -27,7 +27,7 @@ public class Chess960Setup {
         }
 
         List<Piece> whitePieces = new ArrayList<>();
-        whitePieces.add(new King(true));
+        whitePieces.add(King.of(true));
 
         if (purchasedPieces != null) {
             whitePieces.addAll(purchasedPieces);
@@ -45,7 +45,8 @@ public class Chess960Setup {
         state.movesToEnd = 0;
         state.capturesMade = 0;
         state.specialMovesUsed = 0;
-        state.piecesLeftStanding = countPiecesOnBoard(state);
+        state.rebuildIndexes();
+        state.piecesLeftStanding = state.getTotalPieceCount();
         state.enPassantTarget = null;
 
         state.whiteKingMoved = false;
@@ -179,7 +180,7 @@ public class Chess960Setup {
             System.out.println("  WARNING: Black king missing! Adding to back rank...");
             for (int col : new int[]{4, 3, 5, 2, 6}) {
                 if (state.board[0][col] == null) {
-                    state.board[0][col] = new King(false);
+                    state.board[0][col] = King.of(false);
                     System.out.println("  Placed black king at rank 8, file " + (char)('a' + col));
                     break;
                 }
@@ -188,45 +189,22 @@ public class Chess960Setup {
     }
 
     private Piece createMirroredPiece(Piece whitePiece) {
-        if (whitePiece instanceof Pawn) return new Pawn(false);
-        if (whitePiece instanceof Knight) return new Knight(false);
-        if (whitePiece instanceof Bishop) return new Bishop(false);
-        if (whitePiece instanceof Rook) return new Rook(false);
-        if (whitePiece instanceof Queen) return new Queen(false);
-        if (whitePiece instanceof King) return new King(false);
+        if (whitePiece instanceof Pawn) return Pawn.of(false);
+        if (whitePiece instanceof Knight) return Knight.of(false);
+        if (whitePiece instanceof Bishop) return Bishop.of(false);
+        if (whitePiece instanceof Rook) return Rook.of(false);
+        if (whitePiece instanceof Queen) return Queen.of(false);
+        if (whitePiece instanceof King) return King.of(false);
         return null;
     }
 
     public String getPositionDescription(GameState state) {
-        int whitePieces = 0;
-        int blackPieces = 0;
-        int whiteRooksQueens = 0;
-        int whitePawns = 0;
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = state.board[r][c];
-                if (p != null) {
-                    if (p.isWhite()) {
-                        whitePieces++;
-                        if (p instanceof Pawn) whitePawns++;
-                        if (p instanceof Rook || p instanceof Queen) whiteRooksQueens++;
-                    } else {
-                        blackPieces++;
-                    }
-                }
-            }
-        }
+        int whitePieces = state.getPieceCount(true);
+        int blackPieces = state.getPieceCount(false);
+        int whitePawns = state.getPieceCount(true, BitboardPosition.PAWN);
+        int whiteRooksQueens = state.getPieceCount(true, BitboardPosition.ROOK)
+            + state.getPieceCount(true, BitboardPosition.QUEEN);
         return String.format("Chess960 Setup: %d white, %d black pieces (%d pawns protecting %d rooks/queens)",
             whitePieces, blackPieces, whitePawns, whiteRooksQueens);
     }
-
-    private int countPiecesOnBoard(GameState state) {
-        int count = 0;
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                if (state.board[r][c] != null) count++;
-            }
-        }
-        return count;
-    }
 }
\ No newline at end of file
@@ -2,11 +2,24 @@ package ashes;
 
 import java.util.*;
 
+/**
+ * One game's playing context: the current GameState, its undo history and the
+ * scratch buffers used to answer queries about it. The rules themselves are in
+ * ChessRules and shared by every context. A context is not thread-safe; give each
+ * game, perft run or simulation its own, and they can all run concurrently. The
+ * AI search does not go through a context at all: each SearchWorker works on its
+ * own BitboardPosition.
+ */
 public class ChessEngine {
     private GameState state;
-    private Deque<HistoryEntry> history;
+    private HistoryEntry[] history;
+    private int historySize;
     private Random rng;
-    private boolean isCheckingAttacks = false;
+    private final See exchange = new See();
+    // Bitboard mirror of state for see(); reloaded when the position's key changes.
+    private final BitboardPosition position = new BitboardPosition();
+    private GameState positionState;
+    private long positionKey;
 
     public ChessEngine() {
         this(new GameState());
@@ -15,7 +28,8 @@ public class ChessEngine {
     public ChessEngine(GameState initial) 
     {
         this.state = initial;
-        this.history = new ArrayDeque<>();
+        this.history = new HistoryEntry[64];
+        this.historySize = 0;
         this.rng = new Random(12345);
     }
 
@@ -27,309 +41,136 @@ public class ChessEngine {
     public void reset() 
     {
         this.state = new GameState();
-        this.history.clear();
-        this.isCheckingAttacks = false;
+        this.historySize = 0;
     }
 
     public boolean applyMove(Move move) {
-        if (!isMoveLegal(move)) {
+        Move legal = findLegalMove(move);
+        if (legal == null) {
             return false;
         }
-        HistoryEntry entry = makeHistoryEntry(move);
-        history.push(entry);
-        performMoveOnState(state, move);
-
-        updateCastlingRights(move);
-
-        updateEnPassantTarget(move);
+        makeMove(legal.copy());
 
         state.movesToEnd++;
-        state.moveHistory.add(move.toUCI());
+        state.moveHistory.add(legal.toUCI());
+        state.lastMoveUCI = legal.toUCI();
 
-        if (move.isCastle || move.isEnPassant || move.isPromotion) {
+        if (legal.isCastle || legal.isEnPassant || legal.isPromotion) {
             state.specialMovesUsed++;
         }
 
-        state.whiteToMove = !state.whiteToMove;
-
         checkEndConditions();
         return true;
     }
 
-    private void updateCastlingRights(Move move) {
-        Piece piece = state.board[move.toRow][move.toCol];
-
-        if (piece instanceof King) {
-            if (piece.isWhite()) {
-                state.whiteKingMoved = true;
-                ((King) piece).setHasMoved(true);
-            } else {
-                state.blackKingMoved = true;
-                ((King) piece).setHasMoved(true);
-            }
-        }
-
-        if (piece instanceof Rook) {
-            if (piece.isWhite()) {
-                if (move.fromCol == 7) state.whiteKingsideRookMoved = true;
-                if (move.fromCol == 0) state.whiteQueensideRookMoved = true;
-            } else {
-                if (move.fromCol == 7) state.blackKingsideRookMoved = true;
-                if (move.fromCol == 0) state.blackQueensideRookMoved = true;
-            }
+    /**
+     * Plays a move on the engine's state in place, without legality checks or game
+     * bookkeeping (move list, counters, end conditions). The move object is kept on
+     * the undo stack and must not be mutated until the matching unmakeMove().
+     */
+    public void makeMove(Move move) {
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
         }
-
-        if (move.isCapture) {
-            if (move.toRow == 7) {
-                if (move.toCol == 7) state.whiteKingsideRookMoved = true;
-                if (move.toCol == 0) state.whiteQueensideRookMoved = true;
-            } else if (move.toRow == 0) {
-                if (move.toCol == 7) state.blackKingsideRookMoved = true;
-                if (move.toCol == 0) state.blackQueensideRookMoved = true;
-            }
+        HistoryEntry entry = history[historySize];
+        if (entry == null) {
+            entry = new HistoryEntry();
+            history[historySize] = entry;
         }
+        historySize++;
+        fillHistoryEntry(entry, move);
+        ChessRules.playMove(state, move);
+        if (Zobrist.DEBUG) Zobrist.verify(state.getZobristKey(), Zobrist.compute(state), "ChessEngine.makeMove");
     }
 
-    private void updateEnPassantTarget(Move move) {
-        state.enPassantTarget = null;
-        Piece piece = state.board[move.toRow][move.toCol];
-        if (piece instanceof Pawn) {
-            int moveDist = Math.abs(move.toRow - move.fromRow);
-            if (moveDist == 2) {
-                int targetRow = (move.fromRow + move.toRow) / 2;
-                state.enPassantTarget = new Square(targetRow, move.toCol);
-            }
+    /** Restores the state exactly as it was before the last makeMove(). */
+    public void unmakeMove() {
+        if (historySize == 0) {
+            throw new IllegalStateException("unmakeMove() without a matching makeMove()");
         }
+        restoreHistoryEntry(history[--historySize]);
+        if (Zobrist.DEBUG) Zobrist.verify(state.getZobristKey(), Zobrist.compute(state), "ChessEngine.unmakeMove");
     }
 
     public boolean undo() {
-        if (history.isEmpty()) return false;
-        HistoryEntry entry = history.pop();
-        restoreHistoryEntry(entry);
+        if (historySize == 0) return false;
+        unmakeMove();
+        if (!state.moveHistory.isEmpty())
+            state.moveHistory.remove(state.moveHistory.size() - 1);
         return true;
     }
 
-    public List<Move> getPseudoLegalMoves(int fromRow, int fromCol) {
-        Piece piece = state.board[fromRow][fromCol];
-        if (piece == null) return Collections.emptyList();
-        return getSafeLegalMoves(piece, fromRow, fromCol);
+    public boolean isMoveLegal(Move move) {
+        return findLegalMove(move) != null;
     }
 
-    public boolean isMoveLegal(Move move) {
+    /** Returns the engine-generated move matching the given coordinates if it is legal, else null. */
+    private Move findLegalMove(Move move) {
         if (!coordinatesInBounds(move.fromRow, move.fromCol) ||
         !coordinatesInBounds(move.toRow, move.toCol)) {
-            return false;
+            return null;
         }
-        Piece piece = state.board[move.fromRow][move.fromCol];
-        if (piece == null) return false;
-        if (piece.isWhite() != state.whiteToMove) return false;
-        List<Move> pseudoLegalMoves = getPseudoLegalMoves(move.fromRow, move.fromCol);
-        boolean found = false;
-        Move matchingMove = null;
-        for (Move m : pseudoLegalMoves) {
-            if (m.fromRow == move.fromRow && m.fromCol == move.fromCol &&
-            m.toRow == move.toRow && m.toCol == move.toCol) {
-                matchingMove = m;
-                found = true;
-                break;
+        for (Move m : getLegalMovesFromSquare(move.fromRow, move.fromCol)) {
+            if (m.toRow == move.toRow && m.toCol == move.toCol) {
+                return m;
             }
         }
-        if (!found) return false;
-        if (state.bannedSquare != null) {
-            if (move.toRow == state.bannedSquare.row && move.toCol == state.bannedSquare.col) {
-                return false;
-            }
-        }
-        GameState simulated = simulateMove(state, matchingMove);
-        boolean ourKingInCheck = isKingInCheck(simulated, state.whiteToMove);
-        return !ourKingInCheck;
+        return null;
     }
 
     public List<Move> getLegalMovesFromSquare(int r, int c) {
         List<Move> legalMoves = new ArrayList<>();
-        List<Move> pseudoLegalMoves = getPseudoLegalMoves(r, c);
-        for (Move move : pseudoLegalMoves) {
-            if (isMoveLegal(move)) {
-                legalMoves.add(move);
-            }
-        }
+        ChessRules.legalMovesFrom(state, r, c, legalMoves);
         return legalMoves;
     }
 
-    private List<Move> getSafeLegalMoves(Piece piece, int row, int col) {
-        try {
-            return piece.generateLegalMoves(row, col, this);
-        } catch (StackOverflowError e) {
-            System.err.println("Stack overflow in move generation for " + piece.getName() + " at " + row + "," + col);
-            return Collections.emptyList();
-        }
-    }
-
     boolean coordinatesInBounds(int r, int c) {
         return r >= 0 && r < 8 && c >= 0 && c < 8;
     }
 
-    private void performMoveOnState(GameState gstate, Move move) {
-        Piece moving = gstate.board[move.fromRow][move.fromCol];
-        if (moving == null) {
-            System.err.println("Error: No piece at move source " + move.fromRow + "," + move.fromCol);
-            return;
-        }
-
-        Piece captured = gstate.board[move.toRow][move.toCol];
-        if (move.isEnPassant) {
-            int capRow = move.fromRow;
-            int capCol = move.toCol;
-            captured = gstate.board[capRow][capCol];
-            gstate.board[capRow][capCol] = null;
-        }
-        if (move.isCastle) {
-            if (move.toCol == 6) {
-                Piece rook = gstate.board[move.toRow][7];
-                gstate.board[move.toRow][5] = rook;
-                gstate.board[move.toRow][7] = null;
-            } else if (move.toCol == 2) {
-                Piece rook = gstate.board[move.toRow][0];
-                gstate.board[move.toRow][3] = rook;
-                gstate.board[move.toRow][0] = null;
-            }
-        }
-        gstate.board[move.toRow][move.toCol] = moving;
-        gstate.board[move.fromRow][move.fromCol] = null;
-        if (move.isPromotion) {
-            Piece promoted = createPromotedPiece(move.promotionType, moving.isWhite());
-            gstate.board[move.toRow][move.toCol] = promoted;
-        }
-        if (captured != null) {
-            gstate.capturesMade++;
-        }
-        gstate.piecesLeftStanding = countPiecesOnBoard(gstate);
-        gstate.lastMoveUCI = move.toUCI();
-    }
-
-    private Piece createPromotedPiece(String promoType, boolean white) {
-        switch (promoType) {
-            case "Q": return new Queen(white);
-            case "R": return new Rook(white);
-            case "B": return new Bishop(white);
-            case "N": return new Knight(white);
-            default: return new Queen(white);
-        }
-    }
-
     public GameState simulateMove(GameState fromState, Move move) {
-        GameState newState = fromState.copy();
-        performMoveOnState(newState, move);
-        newState.whiteToMove = !newState.whiteToMove;
-        return newState;
+        return ChessRules.simulateMove(fromState, move);
     }
 
     public boolean isKingInCheck(GameState gstate, boolean whiteKing) {
-        int kr = -1, kc = -1;
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = gstate.board[r][c];
-                if (p instanceof King && p.isWhite() == whiteKing) {
-                    kr = r; kc = c; break;
-                }
-            }
-            if (kr != -1) break;
-        }
-        if (kr == -1) return true;
-        return isSquareAttacked(gstate, kr, kc, !whiteKing);
+        return ChessRules.isKingInCheck(gstate, whiteKing);
     }
 
     public boolean isSquareAttacked(GameState gstate, int targetRow, int targetCol, boolean byWhite) {
-        if (isCheckingAttacks) {
-            return simpleAttackCheck(gstate, targetRow, targetCol, byWhite);
-        }
-        isCheckingAttacks = true;
-        try {
-            for (int r = 0; r < 8; r++) {
-                for (int c = 0; c < 8; c++) {
-                    Piece p = gstate.board[r][c];
-                    if (p != null && p.isWhite() == byWhite) {
-                        List<Move> moves = getSafeLegalMoves(p, r, c);
-                        for (Move m : moves) {
-                            if (m.toRow == targetRow && m.toCol == targetCol) {
-                                Piece target = gstate.board[targetRow][targetCol];
-                                if (target == null || target.isWhite() != byWhite) {
-                                    return true;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            return false;
-        } finally {
-            isCheckingAttacks = false;
-        }
-    }
-
-    private boolean simpleAttackCheck(GameState gstate, int targetRow, int targetCol, boolean byWhite) {
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = gstate.board[r][c];
-                if (p != null && p.isWhite() == byWhite) {
-                    if (canPieceAttackSquare(p, r, c, targetRow, targetCol, gstate)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return ChessRules.isSquareAttacked(gstate, targetRow, targetCol, byWhite);
     }
 
-    private boolean canPieceAttackSquare(Piece piece, int fromRow, int fromCol, int toRow, int toCol, GameState state) {
-        int dr = Math.abs(toRow - fromRow);
-        int dc = Math.abs(toCol - fromCol);
-        if (piece instanceof Pawn) {
-            int dir = piece.isWhite() ? -1 : 1;
-            return (toRow == fromRow + dir) && (dc == 1);
-        } else if (piece instanceof Knight) {
-            return (dr == 2 && dc == 1) || (dr == 1 && dc == 2);
-        } else if (piece instanceof Bishop) {
-            return dr == dc && dr > 0 && isPathClear(state, fromRow, fromCol, toRow, toCol);
-        } else if (piece instanceof Rook) {
-            return (dr == 0 || dc == 0) && (dr + dc > 0) && isPathClear(state, fromRow, fromCol, toRow, toCol);
-        } else if (piece instanceof Queen) {
-            return ((dr == dc) || (dr == 0 || dc == 0)) && (dr + dc > 0) &&
-            isPathClear(state, fromRow, fromCol, toRow, toCol);
-        } else if (piece instanceof King) {
-            return dr <= 1 && dc <= 1 && (dr + dc > 0);
-        }
-        return false;
+    /**
+     * Static exchange evaluation of a move in the current position: the material
+     * (in centipawns) its side comes out ahead after the best sequence of
+     * recaptures on the target square, x-rays included. Does not allocate.
+     */
+    public int see(Move move) {
+        BitboardPosition pos = currentPosition();
+        return exchange.see(pos, PackedMove.fromMove(move, pos));
     }
 
-    private boolean isPathClear(GameState state, int fromRow, int fromCol, int toRow, int toCol) {
-        int dr = Integer.compare(toRow - fromRow, 0);
-        int dc = Integer.compare(toCol - fromCol, 0);
-        int r = fromRow + dr;
-        int c = fromCol + dc;
-        while (r != toRow || c != toCol) {
-            if (state.board[r][c] != null) return false;
-            r += dr;
-            c += dc;
-        }
-        return true;
+    /** Whether see(move) >= margin, without resolving the whole exchange. */
+    public boolean seeGE(Move move, int margin) {
+        BitboardPosition pos = currentPosition();
+        return See.seeGE(pos, PackedMove.fromMove(move, pos), margin);
     }
 
-    private int countPiecesOnBoard(GameState gstate) {
-        int count = 0;
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                if (gstate.board[r][c] != null) count++;
-            }
+    private BitboardPosition currentPosition() {
+        long key = state.getZobristKey();
+        if (positionState != state || positionKey != key) {
+            position.load(state);
+            positionState = state;
+            positionKey = key;
         }
-        return count;
+        return position;
     }
 
     private void checkEndConditions() {
         boolean sideToMove = state.whiteToMove;
         List<Move> legalMoves = getAllLegalMoves(sideToMove);
         if (legalMoves.isEmpty()) {
-            if (isKingInCheck(state, sideToMove)) {
+            if (ChessRules.isKingInCheck(state, sideToMove)) {
                 state.gameOver = true;
                 state.gameResult = sideToMove ? "0-1 (Black mates)" : "1-0 (White mates)";
             } else {
@@ -342,17 +183,11 @@ public class ChessEngine {
         }
     }
 
+    /** Legal moves for the given side; empty unless that side is to move. */
     public List<Move> getAllLegalMoves(boolean forWhite) {
         List<Move> moves = new ArrayList<>();
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = state.board[r][c];
-                if (p != null && p.isWhite() == forWhite) {
-                    List<Move> pieceMoves = getLegalMovesFromSquare(r, c);
-                    moves.addAll(pieceMoves);
-                }
-            }
-        }
+        if (forWhite != state.whiteToMove) return moves;
+        ChessRules.legalMoves(state, moves);
         return moves;
     }
 
@@ -363,19 +198,19 @@ public class ChessEngine {
                 Piece p = state.board[r][c];
                 if (p != null && p.isWhite()) {
                     if (state.board[mirror][c] == null) {
-                        Piece clone = p.clone();
-                        clone.setWhite(false);
-                        state.board[mirror][c] = clone;
+                        state.setPiece(mirror, c, BitboardPosition.createPiece(BitboardPosition.typeOf(p), false));
                     }
                 }
             }
         }
     }
 
-    private HistoryEntry makeHistoryEntry(Move move) {
-        HistoryEntry h = new HistoryEntry();
-        h.move = move.copy();
-        h.captured = state.board[move.toRow][move.toCol];
+    private void fillHistoryEntry(HistoryEntry h, Move move) {
+        h.move = move;
+        h.moved = state.board[move.fromRow][move.fromCol];
+        h.captured = move.isEnPassant
+            ? state.board[move.fromRow][move.toCol]
+            : state.board[move.toRow][move.toCol];
         h.prevEnPassantTarget = state.enPassantTarget;
         h.prevWhiteToMove = state.whiteToMove;
         h.prevWhiteKingMoved = state.whiteKingMoved;
@@ -391,34 +226,28 @@ public class ChessEngine {
         h.prevLastMoveUCI = state.lastMoveUCI;
         h.prevGameOver = state.gameOver;
         h.prevGameResult = state.gameResult;
-        return h;
     }
 
     private void restoreHistoryEntry(HistoryEntry entry) {
         Move move = entry.move;
-        Piece moved = state.board[move.toRow][move.toCol];
-        state.board[move.fromRow][move.fromCol] = moved;
-        state.board[move.toRow][move.toCol] = entry.captured;
+        state.setPiece(move.fromRow, move.fromCol, entry.moved);
         if (move.isEnPassant) {
-            int capRow = move.fromRow;
-            int capCol = move.toCol;
-            state.board[capRow][capCol] = entry.captured;
+            state.setPiece(move.toRow, move.toCol, null);
+            state.setPiece(move.fromRow, move.toCol, entry.captured);
+        } else {
+            state.setPiece(move.toRow, move.toCol, entry.captured);
         }
         if (move.isCastle) {
             if (move.toCol == 6) {
                 Piece rook = state.board[move.toRow][5];
-                state.board[move.toRow][7] = rook;
-                state.board[move.toRow][5] = null;
+                state.setPiece(move.toRow, 5, null);
+                state.setPiece(move.toRow, 7, rook);
             } else if (move.toCol == 2) {
                 Piece rook = state.board[move.toRow][3];
-                state.board[move.toRow][0] = rook;
-                state.board[move.toRow][3] = null;
+                state.setPiece(move.toRow, 3, null);
+                state.setPiece(move.toRow, 0, rook);
             }
         }
-        if (move.isPromotion) {
-            Piece pawn = new Pawn(moved.isWhite());
-            state.board[move.fromRow][move.fromCol] = pawn;
-        }
         state.whiteToMove = entry.prevWhiteToMove;
         state.enPassantTarget = entry.prevEnPassantTarget;
         state.whiteKingMoved = entry.prevWhiteKingMoved;
@@ -435,14 +264,17 @@ public class ChessEngine {
         state.gameOver = entry.prevGameOver;
         state.gameResult = entry.prevGameResult;
 
-        if (!state.moveHistory.isEmpty())
-            state.moveHistory.remove(state.moveHistory.size() - 1);
+        entry.move = null;
+        entry.moved = null;
+        entry.captured = null;
     }
 
+    /** Undo record; instances are pooled on the history stack and reused across moves. */
     private static class HistoryEntry {
         Move move;
+        Piece moved;
         Piece captured;
-        Boolean prevWhiteToMove;
+        boolean prevWhiteToMove;
         Square prevEnPassantTarget;
         boolean prevWhiteKingMoved;
         boolean prevWhiteKingsideRookMoved;
@@ -458,4 +290,4 @@ public class ChessEngine {
         boolean prevGameOver;
         String prevGameResult;
     }
-}
\ No newline at end of file
+}
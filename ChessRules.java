@@ -0,0 +1,173 @@
+package ashes;
+
+import java.util.List;
+
+/**
+ * The game's rules as pure functions of a GameState: move generation, attack and
+ * check tests, and playing a move onto a board. Holds no state of its own and
+ * only reads the immutable lookup tables, so any number of threads may call it at
+ * once as long as each works on its own GameState. Per-game state (the current
+ * position, undo history and scratch buffers) lives in a ChessEngine context.
+ */
+public final class ChessRules {
+    private ChessRules() {}
+
+    /** Legal moves for the side to move, appended to out. */
+    public static void legalMoves(GameState state, List<Move> out) {
+        MoveGenerator.generateLegalMoves(BitboardPosition.fromGameState(state), out);
+    }
+
+    /** Legal moves of the piece on (row, col), appended to out; none unless it is that side's turn. */
+    public static void legalMovesFrom(GameState state, int row, int col, List<Move> out) {
+        if (!Square.insideBoard(row, col)) return;
+        Piece piece = state.board[row][col];
+        if (piece == null || piece.isWhite() != state.whiteToMove) return;
+        MoveGenerator.generateLegalMovesFrom(BitboardPosition.fromGameState(state), Bitboards.square(row, col), out);
+    }
+
+    /** A side without a king counts as in check. */
+    public static boolean isKingInCheck(GameState state, boolean whiteKing) {
+        Square king = state.getKingSquare(whiteKing);
+        if (king == null) return true;
+        return isSquareAttacked(state, king.row, king.col, !whiteKing);
+    }
+
+    /**
+     * Reverse lookup: probes the knight, king and pawn tables and the slider rays
+     * outward from the target square for a matching attacker. Allocation free.
+     */
+    public static boolean isSquareAttacked(GameState state, int targetRow, int targetCol, boolean byWhite) {
+        Piece[][] board = state.board;
+        int sq = Bitboards.square(targetRow, targetCol);
+        int defender = byWhite ? BitboardPosition.BLACK : BitboardPosition.WHITE;
+        if (hasAttacker(board, Bitboards.PAWN_ATTACKS[defender][sq], byWhite, BitboardPosition.PAWN, -1)) return true;
+        if (hasAttacker(board, Bitboards.KNIGHT_ATTACKS[sq], byWhite, BitboardPosition.KNIGHT, -1)) return true;
+        if (hasAttacker(board, Bitboards.KING_ATTACKS[sq], byWhite, BitboardPosition.KING, -1)) return true;
+        long occupied = state.getOccupancy();
+        long rays = SlidingAttacks.rookAttacks(sq, occupied) & occupied;
+        if (hasAttacker(board, rays, byWhite, BitboardPosition.ROOK, BitboardPosition.QUEEN)) return true;
+        rays = SlidingAttacks.bishopAttacks(sq, occupied) & occupied;
+        return hasAttacker(board, rays, byWhite, BitboardPosition.BISHOP, BitboardPosition.QUEEN);
+    }
+
+    private static boolean hasAttacker(Piece[][] board, long squares, boolean white, int type, int altType) {
+        while (squares != 0) {
+            int s = Bitboards.lsb(squares);
+            squares &= squares - 1;
+            Piece p = board[Bitboards.row(s)][Bitboards.col(s)];
+            if (p != null && p.isWhite() == white) {
+                int t = BitboardPosition.typeOf(p);
+                if (t == type || t == altType) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Plays a move onto the board in place: pieces, castling flags, en passant
+     * target and side to move. Does not check legality.
+     */
+    public static void playMove(GameState state, Move move) {
+        movePieces(state, move);
+        updateCastlingRights(state, move);
+        updateEnPassantTarget(state, move);
+        state.whiteToMove = !state.whiteToMove;
+    }
+
+    /** A copy of the state with the move's pieces moved and the turn passed. */
+    public static GameState simulateMove(GameState fromState, Move move) {
+        GameState newState = fromState.copy();
+        movePieces(newState, move);
+        newState.lastMoveUCI = move.toUCI();
+        newState.whiteToMove = !newState.whiteToMove;
+        return newState;
+    }
+
+    private static void movePieces(GameState state, Move move) {
+        Piece moving = state.board[move.fromRow][move.fromCol];
+        if (moving == null) {
+            System.err.println("Error: No piece at move source " + move.fromRow + "," + move.fromCol);
+            return;
+        }
+
+        Piece captured = state.board[move.toRow][move.toCol];
+        if (move.isEnPassant) {
+            int capRow = move.fromRow;
+            int capCol = move.toCol;
+            captured = state.board[capRow][capCol];
+            state.setPiece(capRow, capCol, null);
+        }
+        if (move.isCastle) {
+            if (move.toCol == 6) {
+                Piece rook = state.board[move.toRow][7];
+                state.setPiece(move.toRow, 7, null);
+                state.setPiece(move.toRow, 5, rook);
+            } else if (move.toCol == 2) {
+                Piece rook = state.board[move.toRow][0];
+                state.setPiece(move.toRow, 0, null);
+                state.setPiece(move.toRow, 3, rook);
+            }
+        }
+        state.setPiece(move.fromRow, move.fromCol, null);
+        state.setPiece(move.toRow, move.toCol,
+            move.isPromotion ? createPromotedPiece(move.promotionType, moving.isWhite()) : moving);
+        if (captured != null) {
+            state.capturesMade++;
+        }
+        state.piecesLeftStanding = state.getTotalPieceCount();
+    }
+
+    private static Piece createPromotedPiece(String promoType, boolean white) {
+        switch (promoType) {
+            case "Q": return Queen.of(white);
+            case "R": return Rook.of(white);
+            case "B": return Bishop.of(white);
+            case "N": return Knight.of(white);
+            default: return Queen.of(white);
+        }
+    }
+
+    private static void updateCastlingRights(GameState state, Move move) {
+        Piece piece = state.board[move.toRow][move.toCol];
+
+        if (piece instanceof King) {
+            if (piece.isWhite()) {
+                state.whiteKingMoved = true;
+            } else {
+                state.blackKingMoved = true;
+            }
+        }
+
+        if (piece instanceof Rook) {
+            if (piece.isWhite()) {
+                if (move.fromCol == 7) state.whiteKingsideRookMoved = true;
+                if (move.fromCol == 0) state.whiteQueensideRookMoved = true;
+            } else {
+                if (move.fromCol == 7) state.blackKingsideRookMoved = true;
+                if (move.fromCol == 0) state.blackQueensideRookMoved = true;
+            }
+        }
+
+        if (move.isCapture) {
+            if (move.toRow == 7) {
+                if (move.toCol == 7) state.whiteKingsideRookMoved = true;
+                if (move.toCol == 0) state.whiteQueensideRookMoved = true;
+            } else if (move.toRow == 0) {
+                if (move.toCol == 7) state.blackKingsideRookMoved = true;
+                if (move.toCol == 0) state.blackQueensideRookMoved = true;
+            }
+        }
+    }
+
+    private static void updateEnPassantTarget(GameState state, Move move) {
+        state.enPassantTarget = null;
+        Piece piece = state.board[move.toRow][move.toCol];
+        if (piece instanceof Pawn) {
+            int moveDist = Math.abs(move.toRow - move.fromRow);
+            if (moveDist == 2) {
+                int targetRow = (move.fromRow + move.toRow) / 2;
+                state.enPassantTarget = Square.of(targetRow, move.toCol);
+            }
+        }
+    }
+}
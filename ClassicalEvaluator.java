@@ -0,0 +1,77 @@
+package ashes;
+
+/**
+ * Hand-written evaluation: material and piece-square bonuses, both read from the
+ * totals BitboardPosition keeps incrementally, plus pawn structure and mobility.
+ * Middlegame and endgame terms are blended by the position's game phase. Pawn
+ * structure comes from a PawnTable, so it is only computed when the pawns change;
+ * a passed pawn with nothing on its stop square earns an extra endgame bonus on
+ * top. Mobility counts the squares each knight, bishop, rook and queen attacks
+ * that are not held by its own side, so it needs no move generation and no
+ * legality checks. The make/unmake hooks stay no-ops.
+ */
+public final class ClassicalEvaluator implements Evaluator {
+    private static final int MOBILITY_WEIGHT = 4;
+    private static final int FREE_PASSER_EG = 5;
+    private static final int DEFAULT_PAWN_HASH_KB = 256;
+
+    private final PawnTable pawns;
+
+    public ClassicalEvaluator() {
+        this(DEFAULT_PAWN_HASH_KB);
+    }
+
+    public ClassicalEvaluator(int pawnHashKb) {
+        this.pawns = new PawnTable(pawnHashKb);
+    }
+
+    public PawnTable pawnTable() { return pawns; }
+
+    @Override
+    public void reset(BitboardPosition pos) {
+        pawns.resetStats();
+    }
+
+    @Override
+    public int evaluate(BitboardPosition pos) {
+        int w = BitboardPosition.WHITE;
+        int b = BitboardPosition.BLACK;
+        int entry = pawns.probe(pos);
+        int mg = pos.psqMg(w) - pos.psqMg(b) + pawns.middlegame(entry);
+        int eg = pos.psqEg(w) - pos.psqEg(b) + pawns.endgame(entry)
+            + freePassers(pos, pawns.passed(entry, w), w) - freePassers(pos, pawns.passed(entry, b), b);
+        int score = pos.material(w) - pos.material(b)
+            + PieceSquareTables.taper(mg, eg, pos.phase())
+            + MOBILITY_WEIGHT * (mobility(pos, w) - mobility(pos, b));
+        return pos.sideToMove() == w ? score : -score;
+    }
+
+    /** Squares attacked by the side's minor and major pieces, own-occupied squares excluded. */
+    static int mobility(BitboardPosition pos, int color) {
+        long occ = pos.occupied();
+        long notOwn = ~pos.occupancy(color);
+        int count = 0;
+        for (int type = BitboardPosition.KNIGHT; type <= BitboardPosition.QUEEN; type++) {
+            long bb = pos.pieces(color, type);
+            while (bb != 0) {
+                int sq = Bitboards.lsb(bb);
+                bb &= bb - 1;
+                count += Bitboards.popCount(MoveGenerator.attacks(type, sq, occ) & notOwn);
+            }
+        }
+        return count;
+    }
+
+    private static int freePassers(BitboardPosition pos, long passed, int color) {
+        int bonus = 0;
+        while (passed != 0) {
+            int sq = Bitboards.lsb(passed);
+            passed &= passed - 1;
+            int stop = color == BitboardPosition.WHITE ? sq - 8 : sq + 8;
+            if (stop >= 0 && stop < 64 && pos.pieceAt(stop) == BitboardPosition.EMPTY) {
+                bonus += FREE_PASSER_EG * PawnStructure.relativeRank(color, sq);
+            }
+        }
+        return bonus;
+    }
+}
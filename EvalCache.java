@@ -0,0 +1,67 @@
+package ashes;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Direct-mapped cache of static evaluations keyed by the position's Zobrist key,
+ * shared by all search threads. Like the transposition table it stores
+ * {@code key ^ data} next to the data word, so concurrent writers need no locks
+ * and a torn entry just reads as a miss. Scores are from the side to move's
+ * point of view, which the key already covers.
+ */
+public final class EvalCache {
+    private static final int ENTRY_BYTES = 16;
+    /** Set in every stored data word, so an empty slot never matches. */
+    private static final long VALID = 1L << 32;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EvalCache(int sizeMb) {
+        long entries = Math.max(1L, (long) Math.max(1, sizeMb) * 1024 * 1024 / ENTRY_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    /** Whether the key is cached; read the score with score(). Counts a hit or a miss. */
+    public long probe(long key) {
+        int i = (int) key & mask;
+        long d = data[i];
+        if (d != 0L && (keys[i] ^ d) == key) {
+            hits.increment();
+            return d;
+        }
+        misses.increment();
+        return 0L;
+    }
+
+    /** Score of a non-zero probe() result. */
+    public static int score(long entry) { return (int) entry; }
+
+    public void store(long key, int score) {
+        int i = (int) key & mask;
+        long d = (score & 0xFFFFFFFFL) | VALID;
+        data[i] = d;
+        keys[i] = key ^ d;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(keys, 0L);
+        java.util.Arrays.fill(data, 0L);
+        resetStats();
+    }
+
+    public long hits() { return hits.sum(); }
+
+    public long misses() { return misses.sum(); }
+
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -0,0 +1,26 @@
+package ashes;
+
+/**
+ * Static evaluation used by the AI search. An implementation may keep its own
+ * incremental state (an accumulator, say); the search then tells it about every
+ * move through the make/unmake hooks, which default to doing nothing. Hooks and
+ * evaluate() are only ever called by one thread, so each search thread gets its
+ * own instance.
+ */
+public interface Evaluator {
+    /** Score in centipawns from the point of view of the side to move. */
+    int evaluate(BitboardPosition pos);
+
+    /** Called once with the root before a search, to rebuild any incremental state. */
+    default void reset(BitboardPosition pos) {}
+
+    /** Called just before move is made on pos, which still shows the position before it. */
+    default void makeMove(BitboardPosition pos, int move) {}
+
+    /** Called just after the matching move has been unmade. */
+    default void unmakeMove(BitboardPosition pos, int move) {}
+
+    default void makeNullMove(BitboardPosition pos) {}
+
+    default void unmakeNullMove(BitboardPosition pos) {}
+}
@@ -1,5 +1,7 @@
 package ashes;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -8,6 +10,7 @@ import java.util.*;
  */
 public class GameState implements Serializable {
     private static final long serialVersionUID = 1L;
+    /** Write through setPiece(), or call rebuildIndexes() after editing squares directly. */
     public Piece[][] board;
     public boolean whiteToMove;
     public int goldPlayer;
@@ -33,6 +36,13 @@ public class GameState implements Serializable {
     public boolean blackKingMoved;
     public boolean blackKingsideRookMoved;
     public boolean blackQueensideRookMoved;
+
+    // Incrementally maintained board indexes, derived from board.
+    private transient int[] kingSquare;
+    private transient int[] material;
+    private transient int[] pieceCounts;
+    private transient long occupied;
+    private transient long pieceKey;
     
     public GameState() {
         board = new Piece[8][8];
@@ -58,17 +68,13 @@ public class GameState implements Serializable {
         blackKingMoved = false;
         blackKingsideRookMoved = false;
         blackQueensideRookMoved = false;
+        rebuildIndexes();
     }
     
     public void setGameState(GameState other) {
         
-        this.board = new Piece[8][8];
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = other.board[r][c];
-                this.board[r][c] = (p != null) ? p.clone() : null;
-            }
-        }
+        this.board = Utils.copyBoard(other.board);
+        copyIndexesFrom(other);
         
         this.whiteToMove = other.whiteToMove;
         this.goldPlayer = other.goldPlayer;
@@ -96,46 +102,163 @@ public class GameState implements Serializable {
     }
 
     public GameState copy() {
-        GameState copy = new GameState();
+        return new GameState(this);
+    }
+
+    /** Copy constructor for copy(); takes the indexes from source instead of rebuilding them. */
+    private GameState(GameState source) {
+        board = new Piece[8][];
         for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                if (board[r][c] != null) {
-                    copy.board[r][c] = board[r][c].clone();
-                }
-            }
+            board[r] = source.board[r].clone();
         }
-        copy.whiteToMove = whiteToMove;
-        copy.goldPlayer = goldPlayer;
-        copy.pawnResource = pawnResource;
-        copy.movesToEnd = movesToEnd;
-        copy.capturesMade = capturesMade;
-        copy.specialMovesUsed = specialMovesUsed;
-        copy.piecesLeftStanding = piecesLeftStanding;
-        copy.bannedSquare = bannedSquare;
-        copy.enPassantTarget = enPassantTarget;
-        copy.gameOver = gameOver;
-        copy.gameResult = gameResult;
-        copy.roundNumber = roundNumber;
+        copyIndexesFrom(source);
+        whiteToMove = source.whiteToMove;
+        goldPlayer = source.goldPlayer;
+        pawnResource = source.pawnResource;
+        movesToEnd = source.movesToEnd;
+        capturesMade = source.capturesMade;
+        specialMovesUsed = source.specialMovesUsed;
+        piecesLeftStanding = source.piecesLeftStanding;
+        bannedSquare = source.bannedSquare;
+        enPassantTarget = source.enPassantTarget;
+        gameOver = source.gameOver;
+        gameResult = source.gameResult;
+        roundNumber = source.roundNumber;
         
-        copy.lastMoveUCI = lastMoveUCI;
-        copy.aiDepth = this.aiDepth;
-        copy.whiteKingMoved = whiteKingMoved;
-        copy.whiteKingsideRookMoved = whiteKingsideRookMoved;
-        copy.whiteQueensideRookMoved = whiteQueensideRookMoved;
-        copy.blackKingMoved = blackKingMoved;
-        copy.blackKingsideRookMoved = blackKingsideRookMoved;
-        copy.blackQueensideRookMoved = blackQueensideRookMoved;
+        lastMoveUCI = source.lastMoveUCI;
+        aiDepth = source.aiDepth;
+        whiteKingMoved = source.whiteKingMoved;
+        whiteKingsideRookMoved = source.whiteKingsideRookMoved;
+        whiteQueensideRookMoved = source.whiteQueensideRookMoved;
+        blackKingMoved = source.blackKingMoved;
+        blackKingsideRookMoved = source.blackKingsideRookMoved;
+        blackQueensideRookMoved = source.blackQueensideRookMoved;
         
-        copy.moveHistory = new ArrayList<>(moveHistory);
-        return copy;
+        moveHistory = new ArrayList<>(source.moveHistory);
     }
 
     public void initializeStartingPosition() {
-        board[7][4] = new King(true);
-        board[6][3] = new Pawn(true);
-        board[6][4] = new Pawn(true);
-        board[0][4] = new King(false);
-        board[1][3] = new Pawn(false);
-        board[1][4] = new Pawn(false);
+        board[7][4] = King.of(true);
+        board[6][3] = Pawn.of(true);
+        board[6][4] = Pawn.of(true);
+        board[0][4] = King.of(false);
+        board[1][3] = Pawn.of(false);
+        board[1][4] = Pawn.of(false);
+        rebuildIndexes();
+    }
+
+    /** Places (or with null, clears) a piece and updates the indexes incrementally. */
+    public void setPiece(int row, int col, Piece piece) {
+        Piece old = board[row][col];
+        if (old == piece) return;
+        int sq = (row << 3) | col;
+        if (old != null) unindex(old, sq);
+        board[row][col] = piece;
+        if (piece != null) index(piece, sq);
+    }
+
+    /** Recomputes king squares, material, counts, occupancy and the piece hash from the board. */
+    public void rebuildIndexes() {
+        kingSquare = new int[] {-1, -1};
+        material = new int[2];
+        pieceCounts = new int[12];
+        occupied = 0L;
+        pieceKey = 0L;
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                if (board[r][c] != null) index(board[r][c], (r << 3) | c);
+            }
+        }
+    }
+
+    private void index(Piece p, int sq) {
+        int color = p.isWhite() ? 0 : 1;
+        int type = BitboardPosition.typeOf(p);
+        pieceCounts[color * 6 + type]++;
+        occupied |= 1L << sq;
+        pieceKey ^= Zobrist.piece(color, type, sq);
+        if (type == BitboardPosition.KING) kingSquare[color] = sq;
+        else material[color] += p.getValue();
+    }
+
+    private void unindex(Piece p, int sq) {
+        int color = p.isWhite() ? 0 : 1;
+        int type = BitboardPosition.typeOf(p);
+        pieceCounts[color * 6 + type]--;
+        occupied &= ~(1L << sq);
+        pieceKey ^= Zobrist.piece(color, type, sq);
+        if (type == BitboardPosition.KING) {
+            if (kingSquare[color] == sq) kingSquare[color] = -1;
+        } else {
+            material[color] -= p.getValue();
+        }
+    }
+
+    private void copyIndexesFrom(GameState other) {
+        kingSquare = other.kingSquare.clone();
+        material = other.material.clone();
+        pieceCounts = other.pieceCounts.clone();
+        occupied = other.occupied;
+        pieceKey = other.pieceKey;
+    }
+
+    /** The side's king square, or null if it has no king. */
+    public Square getKingSquare(boolean white) {
+        int sq = kingSquare[white ? 0 : 1];
+        return sq < 0 ? null : Square.of(sq);
+    }
+
+    /** Material in Piece.getValue() units, kings excluded. */
+    public int getMaterial(boolean white) {
+        return material[white ? 0 : 1];
+    }
+
+    public int getPieceCount(boolean white) {
+        int base = white ? 0 : 6;
+        int n = 0;
+        for (int t = 0; t < 6; t++) n += pieceCounts[base + t];
+        return n;
+    }
+
+    /** Count of one piece type, given as a BitboardPosition type constant. */
+    public int getPieceCount(boolean white, int type) {
+        return pieceCounts[(white ? 0 : 6) + type];
+    }
+
+    public int getTotalPieceCount() {
+        return Long.bitCount(occupied);
+    }
+
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    /**
+     * 64-bit Zobrist key of the position. The piece part is kept incrementally by
+     * setPiece(); side to move, castling flags, en passant and the banned square
+     * are folded in from the current fields.
+     */
+    public long getZobristKey() {
+        int ep = enPassantTarget == null ? -1 : (enPassantTarget.row << 3) | enPassantTarget.col;
+        int banned = bannedSquare == null ? -1 : (bannedSquare.row << 3) | bannedSquare.col;
+        return pieceKey ^ Zobrist.stateKey(whiteToMove ? BitboardPosition.WHITE : BitboardPosition.BLACK,
+            getMovedFlags(), ep, banned);
+    }
+
+    /** Castling "moved" flags packed as BitboardPosition.*_MOVED bits. */
+    public int getMovedFlags() {
+        int flags = 0;
+        if (whiteKingMoved) flags |= BitboardPosition.WHITE_KING_MOVED;
+        if (whiteKingsideRookMoved) flags |= BitboardPosition.WHITE_KINGSIDE_ROOK_MOVED;
+        if (whiteQueensideRookMoved) flags |= BitboardPosition.WHITE_QUEENSIDE_ROOK_MOVED;
+        if (blackKingMoved) flags |= BitboardPosition.BLACK_KING_MOVED;
+        if (blackKingsideRookMoved) flags |= BitboardPosition.BLACK_KINGSIDE_ROOK_MOVED;
+        if (blackQueensideRookMoved) flags |= BitboardPosition.BLACK_QUEENSIDE_ROOK_MOVED;
+        return flags;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildIndexes();
     }
 }
\ No newline at end of file
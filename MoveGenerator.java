@@ -0,0 +1,207 @@
+package ashes;
+
+import java.util.List;
+
+/**
+ * Fully legal move generator on a BitboardPosition. Checkers, pinned pieces and
+ * the check-evasion mask are computed once per call, so every emitted move is
+ * legal without a make/test/unmake round trip. Follows the game's rules: pawns
+ * promote to a queen, castling moves the king to the c/g file with the rook from
+ * the a/h corner, and nothing may move onto the banned square.
+ */
+public final class MoveGenerator {
+    private MoveGenerator() {}
+
+    public static void generateLegalMoves(BitboardPosition pos, MoveList out) {
+        out.clear();
+        generate(pos, ~0L, false, out);
+    }
+
+    public static void generateLegalMovesFrom(BitboardPosition pos, int fromSq, MoveList out) {
+        out.clear();
+        generate(pos, Bitboards.bit(fromSq), false, out);
+    }
+
+    /** Legal captures (en passant included) and promotions only, for quiescence search. */
+    public static void generateLegalCaptures(BitboardPosition pos, MoveList out) {
+        out.clear();
+        generate(pos, ~0L, true, out);
+    }
+
+    /** Boundary variant for the UI and ChessEngine: legal moves as Move objects. */
+    public static void generateLegalMoves(BitboardPosition pos, List<Move> out) {
+        MoveList list = new MoveList();
+        generate(pos, ~0L, false, list);
+        toMoves(list, out);
+    }
+
+    public static void generateLegalMovesFrom(BitboardPosition pos, int fromSq, List<Move> out) {
+        MoveList list = new MoveList();
+        generate(pos, Bitboards.bit(fromSq), false, list);
+        toMoves(list, out);
+    }
+
+    private static void toMoves(MoveList list, List<Move> out) {
+        for (int i = 0; i < list.size(); i++) {
+            out.add(PackedMove.toMove(list.get(i)));
+        }
+    }
+
+    private static void generate(BitboardPosition pos, long fromMask, boolean capturesOnly, MoveList out) {
+        int us = pos.sideToMove;
+        int them = us ^ 1;
+        int king = pos.kingSquare(us);
+        if (king < 0) return;
+
+        long occ = pos.occupied;
+        long own = pos.colors[us];
+        long enemy = pos.colors[them];
+        long allowed = ~own;
+        if (pos.bannedSquare >= 0) allowed &= ~Bitboards.bit(pos.bannedSquare);
+
+        long pieceTargets = capturesOnly ? enemy : ~0L;
+        long checkers = pos.attackersTo(king, occ) & enemy;
+        long pinned = pinnedPieces(pos, king, us);
+
+        if ((fromMask & Bitboards.bit(king)) != 0) {
+            long targets = Bitboards.KING_ATTACKS[king] & allowed & pieceTargets;
+            long occNoKing = occ ^ Bitboards.bit(king);
+            while (targets != 0) {
+                int to = Bitboards.lsb(targets);
+                targets &= targets - 1;
+                if (!pos.isSquareAttacked(to, them, occNoKing)) {
+                    add(out, king, to, enemy);
+                }
+            }
+            if (checkers == 0 && !capturesOnly) addCastling(pos, king, us, out);
+        }
+        if (Bitboards.popCount(checkers) > 1) return;
+
+        long evasion = checkers == 0 ? ~0L : checkers | SlidingAttacks.between(king, Bitboards.lsb(checkers));
+        long targetMask = allowed & evasion;
+
+        long movers = own & ~pos.pieces[BitboardPosition.KING] & ~pos.pieces[BitboardPosition.PAWN] & fromMask;
+        while (movers != 0) {
+            int from = Bitboards.lsb(movers);
+            movers &= movers - 1;
+            long targets = attacks(pos.board[from] & 7, from, occ) & targetMask & pieceTargets;
+            if ((pinned & Bitboards.bit(from)) != 0) targets &= SlidingAttacks.line(king, from);
+            while (targets != 0) {
+                int to = Bitboards.lsb(targets);
+                targets &= targets - 1;
+                add(out, from, to, enemy);
+            }
+        }
+
+        long pawns = pos.pieces(us, BitboardPosition.PAWN) & fromMask;
+        while (pawns != 0) {
+            int from = Bitboards.lsb(pawns);
+            pawns &= pawns - 1;
+            long pinMask = (pinned & Bitboards.bit(from)) != 0 ? SlidingAttacks.line(king, from) : ~0L;
+            addPawnMoves(pos, from, us, targetMask & pinMask, enemy, capturesOnly, out);
+            addEnPassant(pos, from, us, king, allowed & pinMask, out);
+        }
+    }
+
+    /** Own pieces that are the only blocker between our king and an enemy slider. */
+    static long pinnedPieces(BitboardPosition pos, int king, int us) {
+        long enemy = pos.colors[us ^ 1];
+        long snipers = ((SlidingAttacks.rookAttacks(king, 0L) & (pos.pieces[BitboardPosition.ROOK] | pos.pieces[BitboardPosition.QUEEN]))
+            | (SlidingAttacks.bishopAttacks(king, 0L) & (pos.pieces[BitboardPosition.BISHOP] | pos.pieces[BitboardPosition.QUEEN])))
+            & enemy;
+        long pinned = 0L;
+        while (snipers != 0) {
+            int s = Bitboards.lsb(snipers);
+            snipers &= snipers - 1;
+            long blockers = SlidingAttacks.between(king, s) & pos.occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & pos.colors[us]) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    static long attacks(int type, int sq, long occ) {
+        switch (type) {
+            case BitboardPosition.KNIGHT: return Bitboards.KNIGHT_ATTACKS[sq];
+            case BitboardPosition.BISHOP: return SlidingAttacks.bishopAttacks(sq, occ);
+            case BitboardPosition.ROOK: return SlidingAttacks.rookAttacks(sq, occ);
+            case BitboardPosition.QUEEN: return SlidingAttacks.queenAttacks(sq, occ);
+            case BitboardPosition.KING: return Bitboards.KING_ATTACKS[sq];
+            default: return 0L;
+        }
+    }
+
+    private static void addPawnMoves(BitboardPosition pos, int from, int us, long mask, long enemy,
+                                     boolean capturesOnly, MoveList out) {
+        int dir = us == BitboardPosition.WHITE ? -8 : 8;
+        int startRow = us == BitboardPosition.WHITE ? 6 : 1;
+        int one = from + dir;
+        if (one >= 0 && one < 64 && pos.board[one] == BitboardPosition.EMPTY) {
+            int oneRow = Bitboards.row(one);
+            boolean promotes = oneRow == 0 || oneRow == 7;
+            if ((mask & Bitboards.bit(one)) != 0 && (promotes || !capturesOnly)) addPawn(out, from, one, false);
+            int two = one + dir;
+            if (!capturesOnly && Bitboards.row(from) == startRow && pos.board[two] == BitboardPosition.EMPTY
+                && (mask & Bitboards.bit(two)) != 0) {
+                out.add(PackedMove.encode(from, two, PackedMove.DOUBLE_PUSH));
+            }
+        }
+        long captures = Bitboards.PAWN_ATTACKS[us][from] & enemy & mask;
+        while (captures != 0) {
+            int to = Bitboards.lsb(captures);
+            captures &= captures - 1;
+            addPawn(out, from, to, true);
+        }
+    }
+
+    private static void addEnPassant(BitboardPosition pos, int from, int us, int king, long mask, MoveList out) {
+        int ep = pos.enPassantSquare;
+        if (ep < 0 || (Bitboards.PAWN_ATTACKS[us][from] & mask & Bitboards.bit(ep)) == 0) return;
+        int captured = Bitboards.square(Bitboards.row(from), Bitboards.col(ep));
+        long occAfter = (pos.occupied & ~Bitboards.bit(from) & ~Bitboards.bit(captured)) | Bitboards.bit(ep);
+        if (pos.isSquareAttacked(king, us ^ 1, occAfter)) return;
+        out.add(PackedMove.encode(from, ep, PackedMove.EN_PASSANT));
+    }
+
+    private static void addCastling(BitboardPosition pos, int king, int us, MoveList out) {
+        int homeRow = us == BitboardPosition.WHITE ? 7 : 0;
+        int kingMoved = us == BitboardPosition.WHITE ? BitboardPosition.WHITE_KING_MOVED : BitboardPosition.BLACK_KING_MOVED;
+        if ((pos.movedFlags & kingMoved) != 0 || Bitboards.row(king) != homeRow) return;
+        int kingsideFlag = us == BitboardPosition.WHITE
+            ? BitboardPosition.WHITE_KINGSIDE_ROOK_MOVED : BitboardPosition.BLACK_KINGSIDE_ROOK_MOVED;
+        int queensideFlag = us == BitboardPosition.WHITE
+            ? BitboardPosition.WHITE_QUEENSIDE_ROOK_MOVED : BitboardPosition.BLACK_QUEENSIDE_ROOK_MOVED;
+        int base = homeRow << 3;
+        tryCastle(pos, king, us, base + 7, base + 6, base + 5, (pos.movedFlags & kingsideFlag) == 0,
+            Bitboards.bit(base + 5) | Bitboards.bit(base + 6), out);
+        tryCastle(pos, king, us, base, base + 2, base + 3, (pos.movedFlags & queensideFlag) == 0,
+            Bitboards.bit(base + 1) | Bitboards.bit(base + 2) | Bitboards.bit(base + 3), out);
+    }
+
+    private static void tryCastle(BitboardPosition pos, int king, int us, int rookFrom, int kingTo, int rookTo,
+                                  boolean rookUnmoved, long mustBeEmpty, MoveList out) {
+        if (!rookUnmoved || pos.board[rookFrom] != (BitboardPosition.ROOK | (us << 3))) return;
+        if ((pos.occupied & mustBeEmpty) != 0) return;
+        if (kingTo == pos.bannedSquare) return;
+        int them = us ^ 1;
+        if (pos.isSquareAttacked(rookTo, them) || pos.isSquareAttacked(kingTo, them)) return;
+        long occAfter = (pos.occupied & ~Bitboards.bit(king) & ~Bitboards.bit(rookFrom))
+            | Bitboards.bit(kingTo) | Bitboards.bit(rookTo);
+        if (pos.isSquareAttacked(kingTo, them, occAfter)) return;
+        out.add(PackedMove.encode(king, kingTo, PackedMove.CASTLE));
+    }
+
+    private static void addPawn(MoveList out, int from, int to, boolean capture) {
+        int toRow = Bitboards.row(to);
+        if (toRow == 0 || toRow == 7) {
+            out.add(PackedMove.promotion(from, to, BitboardPosition.QUEEN, capture));
+        } else {
+            out.add(PackedMove.encode(from, to, capture ? PackedMove.CAPTURE : PackedMove.QUIET));
+        }
+    }
+
+    private static void add(MoveList out, int from, int to, long enemy) {
+        out.add(PackedMove.encode(from, to, (enemy & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET));
+    }
+}
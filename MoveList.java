@@ -0,0 +1,45 @@
+package ashes;
+
+/**
+ * Reusable primitive list of packed moves with a parallel score array for
+ * move ordering. Sized for the maximum number of legal moves in a position.
+ */
+public final class MoveList {
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private final int[] scores = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int i) { return moves[i]; }
+
+    public int score(int i) { return scores[i]; }
+
+    public void setScore(int i, int score) { scores[i] = score; }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() { size = 0; }
+
+    public void swap(int i, int j) {
+        int m = moves[i];
+        moves[i] = moves[j];
+        moves[j] = m;
+        int s = scores[i];
+        scores[i] = scores[j];
+        scores[j] = s;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,145 @@
+package ashes;
+
+/**
+ * Move ordering for the AI search. Scores a node's moves so that the hash move
+ * comes first, then captures that do not lose material (most valuable victim,
+ * least valuable attacker), the two killer moves of the ply, the countermove to
+ * the opponent's last move, the remaining quiet moves by butterfly history, and
+ * losing captures last. Moves are then picked lazily with pickNext(), so a node
+ * that cuts off early never sorts the rest.
+ *
+ * Killers, history and countermoves are search state; keep one orderer per
+ * searching thread and call newSearch() before each search to age them:
+ * killers and countermoves are dropped, history is halved.
+ */
+public final class MoveOrderer {
+    private static final int HASH_SCORE = 1_000_000;
+    private static final int GOOD_CAPTURE_SCORE = 800_000;
+    private static final int KILLER_SCORE = 700_000;
+    private static final int COUNTER_SCORE = 690_000;
+    private static final int BAD_CAPTURE_SCORE = -800_000;
+    /** History values stay below this, so quiet moves never outrank a countermove. */
+    private static final int HISTORY_MAX = 1 << 16;
+
+    private final int[][] killers;
+    private final int[][] history = new int[2][64 * 64];
+    private final int[] counterMoves = new int[64 * 64];
+
+    public MoveOrderer(int maxPly) {
+        killers = new int[maxPly + 1][2];
+    }
+
+    /** Ages the tables between searches: killers and countermoves are dropped and history is halved. */
+    public void newSearch() {
+        for (int[] k : killers) {
+            k[0] = PackedMove.NONE;
+            k[1] = PackedMove.NONE;
+        }
+        java.util.Arrays.fill(counterMoves, PackedMove.NONE);
+        for (int[] h : history) {
+            for (int i = 0; i < h.length; i++) h[i] >>= 1;
+        }
+    }
+
+    /**
+     * Scores every move in the list for pickNext(). prevMove is the move that led
+     * to this node (PackedMove.NONE at the root or after a null move).
+     */
+    public void score(BitboardPosition pos, MoveList moves, int hashMove, int ply, int prevMove) {
+        int us = pos.sideToMove();
+        int killer1 = killers[ply][0];
+        int killer2 = killers[ply][1];
+        int counter = prevMove == PackedMove.NONE ? PackedMove.NONE : counterMoves[butterfly(prevMove)];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score;
+            if (move == hashMove) {
+                score = HASH_SCORE;
+            } else if (isTactical(move)) {
+                score = (See.seeGE(pos, move, 0) ? GOOD_CAPTURE_SCORE : BAD_CAPTURE_SCORE) + mvvLva(pos, move);
+            } else if (move == killer1) {
+                score = KILLER_SCORE;
+            } else if (move == killer2) {
+                score = KILLER_SCORE - 1;
+            } else if (move == counter) {
+                score = COUNTER_SCORE;
+            } else {
+                score = history[us][butterfly(move)];
+            }
+            moves.setScore(i, score);
+        }
+    }
+
+    /** MVV-LVA only, for quiescence where every move is a capture or promotion. */
+    public static void scoreCaptures(BitboardPosition pos, MoveList moves) {
+        for (int i = 0; i < moves.size(); i++) {
+            moves.setScore(i, mvvLva(pos, moves.get(i)));
+        }
+    }
+
+    /** Partial selection sort: brings the highest-scored remaining move to index i. */
+    public static int pickNext(MoveList moves, int i) {
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (moves.score(j) > moves.score(best)) best = j;
+        }
+        if (best != i) moves.swap(i, best);
+        return moves.get(i);
+    }
+
+    /**
+     * Records a quiet move that caused a beta cutoff: it becomes a killer and the
+     * countermove to prevMove, gains history, and the quiet moves tried before it
+     * (moves[0..index)) lose some.
+     */
+    public void updateQuietCutoff(BitboardPosition pos, MoveList moves, int index, int depth, int ply, int prevMove) {
+        int move = moves.get(index);
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (prevMove != PackedMove.NONE) {
+            counterMoves[butterfly(prevMove)] = move;
+        }
+        int[] h = history[pos.sideToMove()];
+        int bonus = Math.min(depth * depth, 400);
+        addHistory(h, butterfly(move), bonus);
+        for (int i = 0; i < index; i++) {
+            int tried = moves.get(i);
+            if (!isTactical(tried)) addHistory(h, butterfly(tried), -bonus);
+        }
+    }
+
+    /** Material a capture or promotion wins outright, ignoring any recapture. */
+    public static int captureGain(BitboardPosition pos, int move) {
+        int gain = 0;
+        if (PackedMove.isEnPassant(move)) {
+            gain = BitboardPosition.PIECE_VALUES[BitboardPosition.PAWN];
+        } else if (PackedMove.isCapture(move)) {
+            gain = BitboardPosition.PIECE_VALUES[pos.pieceAt(PackedMove.to(move)) & 7];
+        }
+        if (PackedMove.isPromotion(move)) {
+            gain += BitboardPosition.PIECE_VALUES[PackedMove.promotionType(move)]
+                - BitboardPosition.PIECE_VALUES[BitboardPosition.PAWN];
+        }
+        return gain;
+    }
+
+    public static boolean isTactical(int move) {
+        return PackedMove.isCapture(move) || PackedMove.isPromotion(move);
+    }
+
+    private static int mvvLva(BitboardPosition pos, int move) {
+        int attacker = pos.pieceAt(PackedMove.from(move)) & 7;
+        return captureGain(pos, move) * 8 - attacker;
+    }
+
+    private static void addHistory(int[] h, int index, int delta) {
+        // Gravity keeps entries within +/-HISTORY_MAX without periodic rescaling.
+        h[index] += delta - h[index] * Math.abs(delta) / HISTORY_MAX;
+    }
+
+    private static int butterfly(int move) {
+        return PackedMove.from(move) << 6 | PackedMove.to(move);
+    }
+}
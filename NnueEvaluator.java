@@ -0,0 +1,133 @@
+package ashes;
+
+/**
+ * Evaluator backed by an NnueNetwork. Keeps the hidden layer's inputs (one
+ * accumulator per perspective) on a stack with an entry per ply: making a move
+ * copies the top entry and adds and subtracts the weight rows of the few pieces
+ * that moved, so evaluate() only runs the small output layer.
+ *
+ * The inner loops go through NnueKernel. To use SIMD, compile
+ * incubator/VectorNnueKernel.java along with the other sources and run with the
+ * incubator module on both command lines:
+ * <pre>
+ *   javac --add-modules jdk.incubator.vector -d out *.java incubator/*.java
+ *   java --add-modules jdk.incubator.vector -Dashes.nnue=net.nnue -cp out ashes.RoguelikeChessAppSwing
+ * </pre>
+ * Without it, the same build runs on the scalar kernel.
+ */
+public final class NnueEvaluator implements Evaluator {
+    private static final int INITIAL_PLIES = SearchWorker.MAX_PLY + 2;
+
+    private final NnueNetwork net;
+    private final NnueKernel kernel;
+    private final int hidden;
+    /** acc[perspective][ply][i] */
+    private short[][][] acc;
+    private int ply;
+
+    public NnueEvaluator(NnueNetwork net) {
+        this(net, NnueKernel.forPlatform());
+    }
+
+    NnueEvaluator(NnueNetwork net, NnueKernel kernel) {
+        this.net = net;
+        this.kernel = kernel;
+        this.hidden = net.hidden;
+        this.acc = new short[2][INITIAL_PLIES][hidden];
+    }
+
+    /** Whether inference runs on the vector API rather than the scalar fallback. */
+    public boolean isVectorized() { return !(kernel instanceof ScalarNnueKernel); }
+
+    @Override
+    public void reset(BitboardPosition pos) {
+        ply = 0;
+        for (int p = BitboardPosition.WHITE; p <= BitboardPosition.BLACK; p++) {
+            short[] a = acc[p][0];
+            System.arraycopy(net.featureBias, 0, a, 0, hidden);
+            for (int sq = 0; sq < 64; sq++) {
+                int code = pos.pieceAt(sq);
+                if (code != BitboardPosition.EMPTY) {
+                    kernel.add(a, net.featureWeights, row(p, code >>> 3, code & 7, sq), hidden);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int evaluate(BitboardPosition pos) {
+        int us = pos.sideToMove();
+        int out = net.outputBias
+            + kernel.dotClippedRelu(acc[us][ply], net.outputWeights, 0, hidden)
+            + kernel.dotClippedRelu(acc[us ^ 1][ply], net.outputWeights, hidden, hidden);
+        return (int) ((long) out * NnueNetwork.OUTPUT_SCALE / (NnueNetwork.QA * NnueNetwork.QB));
+    }
+
+    @Override
+    public void makeMove(BitboardPosition pos, int move) {
+        push();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        int code = pos.pieceAt(from);
+        int us = code >>> 3;
+        int type = code & 7;
+
+        if (flags == PackedMove.EN_PASSANT) {
+            remove(us ^ 1, BitboardPosition.PAWN, (from & ~7) | (to & 7));
+        } else if ((flags & PackedMove.CAPTURE) != 0) {
+            int captured = pos.pieceAt(to);
+            remove(captured >>> 3, captured & 7, to);
+        }
+        remove(us, type, from);
+        add(us, (flags & PackedMove.PROMOTION) != 0 ? PackedMove.promotionType(move) : type, to);
+        if (flags == PackedMove.CASTLE) {
+            int base = to & ~7;
+            boolean kingside = (to & 7) == 6;
+            remove(us, BitboardPosition.ROOK, kingside ? base + 7 : base);
+            add(us, BitboardPosition.ROOK, kingside ? base + 5 : base + 3);
+        }
+    }
+
+    @Override
+    public void unmakeMove(BitboardPosition pos, int move) {
+        ply--;
+    }
+
+    @Override
+    public void makeNullMove(BitboardPosition pos) {
+        push();
+    }
+
+    @Override
+    public void unmakeNullMove(BitboardPosition pos) {
+        ply--;
+    }
+
+    private void push() {
+        if (ply + 1 == acc[0].length) {
+            for (int p = 0; p < 2; p++) {
+                short[][] grown = java.util.Arrays.copyOf(acc[p], acc[p].length * 2);
+                for (int i = acc[p].length; i < grown.length; i++) grown[i] = new short[hidden];
+                acc[p] = grown;
+            }
+        }
+        System.arraycopy(acc[0][ply], 0, acc[0][ply + 1], 0, hidden);
+        System.arraycopy(acc[1][ply], 0, acc[1][ply + 1], 0, hidden);
+        ply++;
+    }
+
+    private void add(int color, int type, int sq) {
+        kernel.add(acc[0][ply], net.featureWeights, row(0, color, type, sq), hidden);
+        kernel.add(acc[1][ply], net.featureWeights, row(1, color, type, sq), hidden);
+    }
+
+    private void remove(int color, int type, int sq) {
+        kernel.sub(acc[0][ply], net.featureWeights, row(0, color, type, sq), hidden);
+        kernel.sub(acc[1][ply], net.featureWeights, row(1, color, type, sq), hidden);
+    }
+
+    private int row(int perspective, int color, int type, int sq) {
+        return NnueNetwork.featureIndex(perspective, color, type, sq) * hidden;
+    }
+}
@@ -0,0 +1,49 @@
+package ashes;
+
+/**
+ * The inner loops of NNUE inference. ScalarNnueKernel runs anywhere; a SIMD
+ * version built on jdk.incubator.vector is picked up by forPlatform() when it
+ * was compiled and the module is present at run time (see NnueEvaluator).
+ */
+interface NnueKernel {
+    /** acc[i] += weights[offset + i] for i in [0, n). */
+    void add(short[] acc, short[] weights, int offset, int n);
+
+    /** acc[i] -= weights[offset + i] for i in [0, n). */
+    void sub(short[] acc, short[] weights, int offset, int n);
+
+    /** Sum over i in [0, n) of clamp(acc[i], 0, NnueNetwork.QA) * weights[offset + i]. */
+    int dotClippedRelu(short[] acc, byte[] weights, int offset, int n);
+
+    /** Kernels are stateless, so every evaluator shares this one. */
+    static NnueKernel forPlatform() {
+        return Holder.KERNEL;
+    }
+
+    final class Holder {
+        private static final NnueKernel KERNEL = load();
+
+        private Holder() {}
+
+        private static NnueKernel load() {
+            NnueKernel kernel;
+            try {
+                Class<?> c = Class.forName("ashes.VectorNnueKernel");
+                kernel = (NnueKernel) c.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarNnueKernel();
+            }
+            // Vector code is very slow until the JIT has compiled it; pay for that here
+            // rather than in the first timed search.
+            short[] acc = new short[256];
+            short[] weights = new short[256];
+            byte[] output = new byte[256];
+            for (int i = 0; i < 20_000; i++) {
+                kernel.add(acc, weights, 0, acc.length);
+                kernel.sub(acc, weights, 0, acc.length);
+                kernel.dotClippedRelu(acc, output, 0, acc.length);
+            }
+            return kernel;
+        }
+    }
+}
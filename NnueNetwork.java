@@ -0,0 +1,105 @@
+package ashes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Quantized weights of a small efficiently updatable neural network (NNUE):
+ * 768 piece-square inputs, one hidden layer of clipped ReLUs per perspective,
+ * and a single output. Immutable once loaded, so every search thread's
+ * NnueEvaluator can share one instance.
+ *
+ * File layout, little-endian:
+ * <pre>
+ *   bytes  "NNU1"
+ *   int32  hidden size H
+ *   int16  feature weights [768][H]
+ *   int16  feature biases  [H]
+ *   int8   output weights  [2H]   side to move's half first
+ *   int32  output bias
+ * </pre>
+ * Hidden activations are clamped to [0, QA] and the output is scaled by
+ * OUTPUT_SCALE / (QA * QB) to centipawns.
+ */
+public final class NnueNetwork {
+    public static final int INPUTS = 768;
+    public static final int QA = 255;
+    public static final int QB = 64;
+    public static final int OUTPUT_SCALE = 400;
+    private static final int MAGIC = 'N' | 'N' << 8 | 'U' << 16 | '1' << 24;
+
+    /** System property naming a network file for AIPlayer to use instead of ClassicalEvaluator. */
+    public static final String FILE_PROPERTY = "ashes.nnue";
+    private static NnueNetwork fromProperty;
+    private static boolean propertyChecked;
+
+    final int hidden;
+    final short[] featureWeights;
+    final short[] featureBias;
+    final byte[] outputWeights;
+    final int outputBias;
+
+    private NnueNetwork(int hidden, short[] featureWeights, short[] featureBias, byte[] outputWeights, int outputBias) {
+        this.hidden = hidden;
+        this.featureWeights = featureWeights;
+        this.featureBias = featureBias;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    public static NnueNetwork load(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+            throw new IOException("Not an NNUE network file: " + file);
+        }
+        int hidden = buf.getInt();
+        long expected = 8L + 2L * INPUTS * hidden + 2L * hidden + 2L * hidden + 4;
+        if (hidden <= 0 || buf.capacity() != expected) {
+            throw new IOException("Bad NNUE network size in " + file + ": hidden=" + hidden
+                + ", " + buf.capacity() + " bytes, expected " + expected);
+        }
+        short[] weights = new short[INPUTS * hidden];
+        buf.asShortBuffer().get(weights);
+        buf.position(buf.position() + 2 * weights.length);
+        short[] bias = new short[hidden];
+        buf.asShortBuffer().get(bias);
+        buf.position(buf.position() + 2 * bias.length);
+        byte[] output = new byte[2 * hidden];
+        buf.get(output);
+        return new NnueNetwork(hidden, weights, bias, output, buf.getInt());
+    }
+
+    /**
+     * The network named by -Dashes.nnue=&lt;file&gt;, loaded once; null when the
+     * property is unset or the file cannot be read.
+     */
+    public static synchronized NnueNetwork fromProperty() {
+        if (!propertyChecked) {
+            propertyChecked = true;
+            String file = System.getProperty(FILE_PROPERTY);
+            if (file != null) {
+                try {
+                    fromProperty = load(Paths.get(file));
+                } catch (IOException e) {
+                    System.err.println("NNUE disabled: " + e.getMessage());
+                }
+            }
+        }
+        return fromProperty;
+    }
+
+    public int hiddenSize() { return hidden; }
+
+    /** Input index of a piece as seen by one side: the board is flipped and colors swapped for black. */
+    static int featureIndex(int perspective, int color, int type, int sq) {
+        if (perspective == BitboardPosition.BLACK) {
+            color ^= 1;
+            sq ^= 56;
+        }
+        return (color * 6 + type) * 64 + sq;
+    }
+}
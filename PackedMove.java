@@ -0,0 +1,95 @@
+package ashes;
+
+/**
+ * 16-bit int encoding of a move for the search path:
+ * bits 0-5 from square, bits 6-11 to square, bits 12-15 flags.
+ * Flag bit 2 marks a capture, bit 3 a promotion (low two bits then give the
+ * piece: knight, bishop, rook, queen). Non-promotion low bits mark a double
+ * pawn push, castling or, together with the capture bit, en passant.
+ * Convert with toMove()/fromMove() at the UI and save-file boundary.
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int CASTLE = 2;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private static final String PROMOTION_NAMES = "NBRQ";
+
+    private PackedMove() {}
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /** Promotion to the given BitboardPosition piece type (KNIGHT..QUEEN). */
+    public static int promotion(int from, int to, int pieceType, boolean capture) {
+        int flags = (capture ? PROMOTION_CAPTURE : PROMOTION) | (pieceType - BitboardPosition.KNIGHT);
+        return encode(from, to, flags);
+    }
+
+    public static int from(int move) { return move & 63; }
+
+    public static int to(int move) { return (move >>> 6) & 63; }
+
+    public static int flags(int move) { return (move >>> 12) & 15; }
+
+    public static boolean isCapture(int move) { return (move & (CAPTURE << 12)) != 0; }
+
+    public static boolean isPromotion(int move) { return (move & (PROMOTION << 12)) != 0; }
+
+    public static boolean isEnPassant(int move) { return flags(move) == EN_PASSANT; }
+
+    public static boolean isCastle(int move) { return flags(move) == CASTLE; }
+
+    public static boolean isDoublePush(int move) { return flags(move) == DOUBLE_PUSH; }
+
+    /** Piece type a promotion creates, as a BitboardPosition constant. */
+    public static int promotionType(int move) {
+        return BitboardPosition.KNIGHT + (flags(move) & 3);
+    }
+
+    public static Move toMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        Move m = new Move(Bitboards.row(from), Bitboards.col(from), Bitboards.row(to), Bitboards.col(to));
+        m.isCapture = isCapture(move);
+        m.isCastle = isCastle(move);
+        m.isEnPassant = isEnPassant(move);
+        if (isPromotion(move)) {
+            m.isPromotion = true;
+            m.promotionType = String.valueOf(PROMOTION_NAMES.charAt(flags(move) & 3));
+        }
+        return m;
+    }
+
+    /**
+     * Encodes a Move using its metadata flags. A double pawn push is recognised
+     * from the position, since Move does not mark it.
+     */
+    public static int fromMove(Move m, BitboardPosition pos) {
+        int from = Bitboards.square(m.fromRow, m.fromCol);
+        int to = Bitboards.square(m.toRow, m.toCol);
+        if (m.isPromotion) {
+            int idx = m.promotionType == null ? 3 : Math.max(0, PROMOTION_NAMES.indexOf(m.promotionType.toUpperCase()));
+            return promotion(from, to, BitboardPosition.KNIGHT + idx, m.isCapture);
+        }
+        if (m.isEnPassant) return encode(from, to, EN_PASSANT);
+        if (m.isCastle) return encode(from, to, CASTLE);
+        if (m.isCapture) return encode(from, to, CAPTURE);
+        int code = pos.pieceAt(from);
+        if (code != BitboardPosition.EMPTY && (code & 7) == BitboardPosition.PAWN && Math.abs(to - from) == 16) {
+            return encode(from, to, DOUBLE_PUSH);
+        }
+        return encode(from, to, QUIET);
+    }
+
+    public static String toUCI(int move) {
+        return toMove(move).toUCI();
+    }
+}
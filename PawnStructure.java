@@ -0,0 +1,110 @@
+package ashes;
+
+/**
+ * Pawn structure terms that depend on the pawns alone: doubled, isolated,
+ * backward and passed pawns, each with a middlegame and an endgame weight.
+ * Scores are white minus black. Because they only change when a pawn moves or
+ * is captured, the evaluation looks them up in a PawnTable instead of calling
+ * this at every leaf.
+ */
+public final class PawnStructure {
+    private static final int DOUBLED_MG = -10, DOUBLED_EG = -20;
+    private static final int ISOLATED_MG = -10, ISOLATED_EG = -15;
+    private static final int BACKWARD_MG = -8, BACKWARD_EG = -10;
+    /** Passed pawn bonus by relative rank, 0 being the side's own back rank. */
+    private static final int[] PASSED_MG = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_EG = {0, 10, 20, 35, 55, 85, 120, 0};
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    /** Squares ahead of a pawn on its own and the adjacent files; no enemy pawn there means passed. */
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    /** Squares beside and behind a pawn on the adjacent files, where a defending pawn could stand. */
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    static {
+        for (int f = 0; f < 8; f++) {
+            FILES[f] = Bitboards.FILE_A << f;
+        }
+        for (int f = 0; f < 8; f++) {
+            ADJACENT_FILES[f] = (f > 0 ? FILES[f - 1] : 0L) | (f < 7 ? FILES[f + 1] : 0L);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int row = Bitboards.row(sq);
+            int file = Bitboards.col(sq);
+            long span = FILES[file] | ADJACENT_FILES[file];
+            for (int r = 0; r < 8; r++) {
+                long rank = Bitboards.ROW_0 << (r * 8);
+                // White pawns advance towards row 0, black pawns towards row 7.
+                if (r < row) PASSED_SPAN[BitboardPosition.WHITE][sq] |= span & rank;
+                if (r > row) PASSED_SPAN[BitboardPosition.BLACK][sq] |= span & rank;
+                if (r >= row) SUPPORT_SPAN[BitboardPosition.WHITE][sq] |= ADJACENT_FILES[file] & rank;
+                if (r <= row) SUPPORT_SPAN[BitboardPosition.BLACK][sq] |= ADJACENT_FILES[file] & rank;
+            }
+        }
+    }
+
+    private PawnStructure() {}
+
+    public static int middlegame(long whitePawns, long blackPawns) {
+        return score(whitePawns, blackPawns, BitboardPosition.WHITE, false)
+            - score(blackPawns, whitePawns, BitboardPosition.BLACK, false);
+    }
+
+    public static int endgame(long whitePawns, long blackPawns) {
+        return score(whitePawns, blackPawns, BitboardPosition.WHITE, true)
+            - score(blackPawns, whitePawns, BitboardPosition.BLACK, true);
+    }
+
+    /**
+     * The side's pawns with no enemy pawn ahead of them on their own or an adjacent
+     * file and no friendly pawn ahead on their own file, so a doubled passer counts once.
+     */
+    public static long passed(long own, long enemy, int color) {
+        long passed = 0L;
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Bitboards.lsb(pawns);
+            pawns &= pawns - 1;
+            if (isPassed(own, enemy, color, sq)) passed |= Bitboards.bit(sq);
+        }
+        return passed;
+    }
+
+    /** 0 for the side's back rank up to 7 for the promotion rank. */
+    public static int relativeRank(int color, int sq) {
+        return color == BitboardPosition.WHITE ? 7 - Bitboards.row(sq) : Bitboards.row(sq);
+    }
+
+    private static boolean isPassed(long own, long enemy, int color, int sq) {
+        long span = PASSED_SPAN[color][sq];
+        return (span & enemy) == 0 && (span & FILES[Bitboards.col(sq)] & own) == 0;
+    }
+
+    private static int score(long own, long enemy, int color, boolean endgame) {
+        int score = 0;
+        for (int f = 0; f < 8; f++) {
+            int count = Bitboards.popCount(own & FILES[f]);
+            if (count > 1) score += (count - 1) * (endgame ? DOUBLED_EG : DOUBLED_MG);
+        }
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Bitboards.lsb(pawns);
+            pawns &= pawns - 1;
+            int file = Bitboards.col(sq);
+            if ((own & ADJACENT_FILES[file]) == 0) {
+                score += endgame ? ISOLATED_EG : ISOLATED_MG;
+            } else if ((own & SUPPORT_SPAN[color][sq]) == 0) {
+                int stop = color == BitboardPosition.WHITE ? sq - 8 : sq + 8;
+                if (stop >= 0 && stop < 64 && (Bitboards.PAWN_ATTACKS[color][stop] & enemy) != 0) {
+                    score += endgame ? BACKWARD_EG : BACKWARD_MG;
+                }
+            }
+            if (isPassed(own, enemy, color, sq)) {
+                int rank = relativeRank(color, sq);
+                score += endgame ? PASSED_EG[rank] : PASSED_MG[rank];
+            }
+        }
+        return score;
+    }
+}
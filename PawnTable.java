@@ -0,0 +1,61 @@
+package ashes;
+
+/**
+ * Direct-mapped cache of PawnStructure results keyed by the pawn-only Zobrist
+ * key: the middlegame and endgame structure scores and each side's passed pawns.
+ * Pawn structures repeat across most of a search tree, so nearly every lookup is
+ * a hit. Not shared between threads; each evaluator owns one.
+ */
+public final class PawnTable {
+    private static final int ENTRY_BYTES = 32;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final long[] passed;
+    private final int mask;
+    private long hits;
+    private long probes;
+
+    public PawnTable(int sizeKb) {
+        int entries = Integer.highestOneBit(Math.max(1, sizeKb * 1024 / ENTRY_BYTES));
+        keys = new long[entries];
+        scores = new int[entries * 2];
+        passed = new long[entries * 2];
+        mask = entries - 1;
+    }
+
+    /** Index of the entry for pos's pawns, filling it on a miss; read it with the accessors. */
+    public int probe(BitboardPosition pos) {
+        long key = pos.pawnKey();
+        int i = (int) key & mask;
+        probes++;
+        // An empty slot holds key 0, the pawnless position, which its zeroed scores fit.
+        if (keys[i] == key) {
+            hits++;
+            return i;
+        }
+        long white = pos.pieces(BitboardPosition.WHITE, BitboardPosition.PAWN);
+        long black = pos.pieces(BitboardPosition.BLACK, BitboardPosition.PAWN);
+        keys[i] = key;
+        scores[2 * i] = PawnStructure.middlegame(white, black);
+        scores[2 * i + 1] = PawnStructure.endgame(white, black);
+        passed[2 * i + BitboardPosition.WHITE] = PawnStructure.passed(white, black, BitboardPosition.WHITE);
+        passed[2 * i + BitboardPosition.BLACK] = PawnStructure.passed(black, white, BitboardPosition.BLACK);
+        return i;
+    }
+
+    public int middlegame(int entry) { return scores[2 * entry]; }
+
+    public int endgame(int entry) { return scores[2 * entry + 1]; }
+
+    public long passed(int entry, int color) { return passed[2 * entry + color]; }
+
+    public long hits() { return hits; }
+
+    public long probes() { return probes; }
+
+    public void resetStats() {
+        hits = 0;
+        probes = 0;
+    }
+}
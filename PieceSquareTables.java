@@ -0,0 +1,138 @@
+package ashes;
+
+/**
+ * Positional bonus, in centipawns, for a piece of a given type standing on a
+ * square, with separate middlegame and endgame tables that the evaluation blends
+ * by game phase. Tables are written from white's side (row 0 is the eighth rank,
+ * as on the board) and mirrored for black. Pawns and the king change the most
+ * between phases: pawns gain weight as they advance and the king moves from its
+ * shelter to the centre. The other pieces use one table for both phases.
+ * BitboardPosition keeps the per-side sums and the phase incrementally, so the
+ * evaluation reads them for free.
+ */
+public final class PieceSquareTables {
+    /** Phase contributed by one piece of each type; a full starting army counts MAX_PHASE. */
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    public static final int MAX_PHASE = 24;
+
+    private static final int[] PAWN_MG = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] PAWN_EG = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         90,  90,  90,  90,  90,  90,  90,  90,
+         55,  55,  55,  55,  55,  55,  55,  55,
+         30,  30,  30,  30,  30,  30,  30,  30,
+         15,  15,  15,  15,  15,  15,  15,  15,
+          5,   5,   5,   5,   5,   5,   5,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] KNIGHT = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] QUEEN = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] KING_MG = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_EG = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    /** MG[color][type][sq] and EG[color][type][sq] */
+    private static final int[][][] MG = new int[2][6][64];
+    private static final int[][][] EG = new int[2][6][64];
+
+    static {
+        int[][] mg = {PAWN_MG, KNIGHT, BISHOP, ROOK, QUEEN, KING_MG};
+        int[][] eg = {PAWN_EG, KNIGHT, BISHOP, ROOK, QUEEN, KING_EG};
+        for (int type = BitboardPosition.PAWN; type <= BitboardPosition.KING; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                MG[BitboardPosition.WHITE][type][sq] = mg[type][sq];
+                MG[BitboardPosition.BLACK][type][sq] = mg[type][sq ^ 56];
+                EG[BitboardPosition.WHITE][type][sq] = eg[type][sq];
+                EG[BitboardPosition.BLACK][type][sq] = eg[type][sq ^ 56];
+            }
+        }
+    }
+
+    private PieceSquareTables() {}
+
+    public static int mg(int color, int type, int sq) {
+        return MG[color][type][sq];
+    }
+
+    public static int eg(int color, int type, int sq) {
+        return EG[color][type][sq];
+    }
+
+    public static int phase(int type) {
+        return PHASE_WEIGHTS[type];
+    }
+
+    /**
+     * Blends a middlegame and an endgame score. phase runs from 0 (bare kings and
+     * pawns) to MAX_PHASE; bigger shop-bought armies are capped there.
+     */
+    public static int taper(int mg, int eg, int phase) {
+        int p = Math.min(phase, MAX_PHASE);
+        return (mg * p + eg * (MAX_PHASE - p)) / MAX_PHASE;
+    }
+}
@@ -4,6 +4,9 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class RoguelikeChessAppSwing extends JFrame {
 
@@ -23,6 +26,15 @@ public class RoguelikeChessAppSwing extends JFrame {
     private ShopScene shopScene;
     private GamePhase currentPhase;
 
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ai-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> aiTask;
+    // Bumped whenever a search starts or is cancelled, so a stale result is dropped.
+    private int aiSearchId;
+
     public enum GamePhase { MENU, PLAYING, SHOPPING, GAME_OVER }
 
     public RoguelikeChessAppSwing() {
@@ -67,6 +79,7 @@ public class RoguelikeChessAppSwing extends JFrame {
         scoreManager.setPlayerName(name.trim());
         scoreManager.resetSession();
 
+        cancelAISearch();
         engine.reset();
         GameState gs = engine.getGameState();
         gs.aiDepth = 2;
@@ -77,6 +90,7 @@ public class RoguelikeChessAppSwing extends JFrame {
 
         chess960.setupCustomChess960Board(gs, starting);
 
+        retireAIPlayer();
         aiPlayer = new AIPlayer(engine, gs.aiDepth);
         currentPhase = GamePhase.PLAYING;
         sceneLayout.show(sceneContainer, "BOARD");
@@ -85,6 +99,7 @@ public class RoguelikeChessAppSwing extends JFrame {
     }
 
     public void onShoppingComplete() {
+        cancelAISearch();
         GameState old = engine.getGameState();
 
         List<Piece> pieces = shopManager.collectPurchasedPieces();
@@ -135,6 +150,7 @@ public class RoguelikeChessAppSwing extends JFrame {
         boardView = new BoardViewSwing(this, engine);
         sceneContainer.add(boardView, "BOARD");
 
+        retireAIPlayer();
         aiPlayer = new AIPlayer(engine, fresh.aiDepth);
 
         currentPhase = GamePhase.PLAYING;
@@ -207,7 +223,7 @@ public class RoguelikeChessAppSwing extends JFrame {
             if (!whiteKingExists) {
                 for (int c = 0; c < 8; c++) {
                     if (state.board[7][c] == null) {
-                        state.board[7][c] = new King(true);
+                        state.setPiece(7, c, King.of(true));
                         System.err.println("Added white king at (7," + c + ")");
                         break;
                     }
@@ -217,7 +233,7 @@ public class RoguelikeChessAppSwing extends JFrame {
             if (!blackKingExists) {
                 for (int c = 0; c < 8; c++) {
                     if (state.board[0][c] == null) {
-                        state.board[0][c] = new King(false);
+                        state.setPiece(0, c, King.of(false));
                         System.err.println("Added black king at (0," + c + ")");
                         break;
                     }
@@ -225,11 +241,11 @@ public class RoguelikeChessAppSwing extends JFrame {
             }
         }
 
-        state.piecesLeftStanding = countPiecesOnBoard(state);
+        state.piecesLeftStanding = state.getTotalPieceCount();
     }
 
     public void onPlayerMove(Move move) {
-        if (currentPhase != GamePhase.PLAYING) return;
+        if (currentPhase != GamePhase.PLAYING || isAIThinking()) return;
         if (!engine.applyMove(move)) {
             JOptionPane.showMessageDialog(this, "Illegal move!");
             return;
@@ -243,11 +259,36 @@ public class RoguelikeChessAppSwing extends JFrame {
             return; 
         }
 
-        SwingUtilities.invokeLater(this::performAIMove);
+        startAIMove();
     }
 
-    private void performAIMove() {
-        Move m = aiPlayer.chooseMove(engine.getGameState());
+    /**
+     * Searches a snapshot of the position on the AI thread and hands the move back
+     * to the EDT. The board ignores input until then, so the live GameState is only
+     * ever touched on the EDT.
+     */
+    private void startAIMove() {
+        int id = ++aiSearchId;
+        AIPlayer ai = aiPlayer;
+        GameState snapshot = engine.getGameState().copy();
+        boardView.setThinking(true);
+        aiTask = aiExecutor.submit(() -> {
+            Move m = null;
+            try {
+                m = ai.chooseMove(snapshot);
+            } catch (RuntimeException e) {
+                System.err.println("AI search failed: " + e);
+            }
+            Move result = m;
+            SwingUtilities.invokeLater(() -> finishAIMove(id, result));
+        });
+    }
+
+    private void finishAIMove(int id, Move m) {
+        if (id != aiSearchId) return;
+        aiTask = null;
+        boardView.setThinking(false);
+        if (currentPhase != GamePhase.PLAYING) return;
         if (m == null) { 
             handleGameOver(); 
             return; 
@@ -255,10 +296,52 @@ public class RoguelikeChessAppSwing extends JFrame {
         engine.applyMove(m);
         AudioPlayer.playMoveSound();
         boardView.refresh();
-        if (engine.getGameState().gameOver) handleGameOver();
+        if (engine.getGameState().gameOver) {
+            handleGameOver();
+            return;
+        }
+        // Think on the player's time; the next chooseMove() picks the search up.
+        AIPlayer ai = aiPlayer;
+        GameState snapshot = engine.getGameState().copy();
+        aiExecutor.submit(() -> ai.startPondering(snapshot));
+    }
+
+    public boolean isAIThinking() { return aiTask != null; }
+
+    /** Stops a running AI search and discards its result. */
+    private void cancelAISearch() {
+        aiSearchId++;
+        if (aiTask != null) {
+            aiTask.cancel(false);
+            aiTask = null;
+        }
+        if (aiPlayer != null) aiPlayer.stop();
+        boardView.setThinking(false);
+    }
+
+    /**
+     * Releases the current AI's threads. Runs on the AI executor, after any search
+     * cancelled by cancelAISearch() has returned, so it never waits on the EDT.
+     */
+    private void retireAIPlayer() {
+        AIPlayer old = aiPlayer;
+        if (old == null) return;
+        old.stop();
+        aiExecutor.submit(old::shutdown);
+    }
+
+    /** Abandons the current match and goes back to the main menu. */
+    public void quitToMenu() {
+        if (currentPhase != GamePhase.PLAYING) return;
+        cancelAISearch();
+        currentPhase = GamePhase.MENU;
+        sceneLayout.show(sceneContainer, "MENU");
+        menuScene.showMenu();
     }
 
     private void handleGameOver() {
+        // Also stops a ponder search started after the AI's last move.
+        cancelAISearch();
         GameState s = engine.getGameState();
         if (s.gameResult.contains("White")) {
             int earn = calculateRoundEarnings(s);
@@ -312,16 +395,6 @@ public class RoguelikeChessAppSwing extends JFrame {
         shopScene.refresh();
     }
 
-    private int countPiecesOnBoard(GameState gstate) {
-        int count = 0;
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                if (gstate.board[r][c] != null) count++;
-            }
-        }
-        return count;
-    }
-
     public void startMatch() {
         if (currentPhase == GamePhase.MENU) startNewGameSession();
         else {
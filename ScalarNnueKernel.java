@@ -0,0 +1,28 @@
+package ashes;
+
+/** Plain-loop NnueKernel, used when the vector API is not available. */
+final class ScalarNnueKernel implements NnueKernel {
+    @Override
+    public void add(short[] acc, short[] weights, int offset, int n) {
+        for (int i = 0; i < n; i++) {
+            acc[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void sub(short[] acc, short[] weights, int offset, int n) {
+        for (int i = 0; i < n; i++) {
+            acc[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int dotClippedRelu(short[] acc, byte[] weights, int offset, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            int a = Math.max(0, Math.min(NnueNetwork.QA, acc[i]));
+            sum += a * weights[offset + i];
+        }
+        return sum;
+    }
+}
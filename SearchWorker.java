@@ -0,0 +1,467 @@
+package ashes;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One thread's share of an AI search: iterative deepening with PVS, null-move
+ * pruning, late move reductions and quiescence over a private BitboardPosition,
+ * with its own move lists, move ordering tables and PV table. Workers share only
+ * the transposition table, the evaluation cache and a Control, so several can search the same root at
+ * once (Lazy SMP): AIPlayer runs one on the calling thread and helpers on a pool.
+ */
+final class SearchWorker {
+    static final int MAX_PLY = 64;
+    private static final int INFINITY = 1_000_000;
+    /** Score of being mated at the root; mates found deeper score closer to zero. */
+    private static final int MATE = 100_000;
+    private static final int MATE_BOUND = MATE - MAX_PLY;
+    /** Slack added to a capture's material gain before delta pruning drops it. */
+    private static final int DELTA_MARGIN = 200;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+
+    /**
+     * Depths helpers skip, so that threads are spread over different iterations:
+     * helper i skips depth d when ((d + SKIP_PHASE[j]) / SKIP_SIZE[j]) is odd, with
+     * j = (i - 1) % SKIP_SIZE.length. The main worker searches every depth.
+     */
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    /** Late move reductions in plies, by remaining depth and move number. */
+    private static final int[][] REDUCTIONS = new int[MAX_PLY + 1][MoveList.CAPACITY];
+
+    static {
+        for (int d = 1; d <= MAX_PLY; d++) {
+            for (int m = 1; m < MoveList.CAPACITY; m++) {
+                REDUCTIONS[d][m] = (int) (0.75 + Math.log(d) * Math.log(m) / 2.25);
+            }
+        }
+    }
+
+    /**
+     * Budget and stop flag shared by all workers of one search. Nodes are reported
+     * in batches, so the node limit is approximate by up to a batch per worker.
+     * While pondering, the budget is ignored; once ponderHit() is called it applies,
+     * still counted from startTime.
+     */
+    static final class Control {
+        final long startTime;
+        final long timeLimitMs;
+        final long nodeLimit;
+        private final AtomicLong nodes = new AtomicLong();
+        volatile boolean stop;
+        volatile boolean pondering;
+
+        Control(long startTime, long timeLimitMs, long nodeLimit) {
+            this.startTime = startTime;
+            this.timeLimitMs = timeLimitMs;
+            this.nodeLimit = nodeLimit;
+        }
+
+        void ponderHit() { pondering = false; }
+
+        /** Adds a batch of searched nodes; true once the search has to stop. */
+        boolean tick(long batch) {
+            if (stop) return true;
+            long total = nodes.addAndGet(batch);
+            if (pondering) return false;
+            if ((timeLimitMs > 0 && System.currentTimeMillis() - startTime >= timeLimitMs)
+                || (nodeLimit > 0 && total >= nodeLimit)) {
+                stop = true;
+            }
+            return stop;
+        }
+
+        /** Past half the time budget: too late to start another iteration. */
+        boolean softLimitReached() {
+            return !pondering && timeLimitMs > 0 && System.currentTimeMillis() - startTime > timeLimitMs / 2;
+        }
+    }
+
+    private final int id;
+    private final TranspositionTable tt;
+    private final EvalCache evalCache;
+    private final BitboardPosition pos = new BitboardPosition();
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final MoveOrderer orderer = new MoveOrderer(MAX_PLY);
+    private final Evaluator evaluator;
+    /** Move played from each ply of the current line; NONE for a null move. */
+    private final int[] currentLine = new int[MAX_PLY + 1];
+
+    // Triangular PV table: pvTable[ply] holds the best line from ply, pvLength[ply] moves long.
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 2];
+    private final int[] lastPv = new int[MAX_PLY + 1];
+    private int lastPvLength;
+
+    private Control control;
+    private boolean stopped;
+    private boolean quiescenceChecks = true;
+    private long nodes;
+    private long qnodes;
+    private int completedDepth;
+    private int bestMove;
+
+    /** evalCache may be null to evaluate every leaf afresh. */
+    SearchWorker(int id, TranspositionTable tt, EvalCache evalCache, Evaluator evaluator) {
+        this.id = id;
+        this.tt = tt;
+        this.evalCache = evalCache;
+        this.evaluator = evaluator;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    void setQuiescenceCheckEvasions(boolean enabled) { this.quiescenceChecks = enabled; }
+
+    long nodes() { return nodes; }
+
+    long quiescenceNodes() { return qnodes; }
+
+    Evaluator evaluator() { return evaluator; }
+
+    int completedDepth() { return completedDepth; }
+
+    /** Best root move of the last completed iteration, or NONE. */
+    int bestMove() { return bestMove; }
+
+    int pvLength() { return lastPvLength; }
+
+    int pvMove(int i) { return lastPv[i]; }
+
+    /**
+     * Iterative deepening from the given root up to maxDepth, until finished or the
+     * control stops it. A single legal move is returned without searching. The main
+     * worker (id 0) starts at depth 1 and also stops at the soft time limit or once
+     * it has found a mate within the depth searched; helpers skip depths by
+     * SKIP_SIZE and SKIP_PHASE so the threads spread over different iterations and
+     * feed each other through the table.
+     * Each iteration starts from the previous best root move and the hash moves it
+     * left in the table. From ASPIRATION_MIN_DEPTH on, iterations search a window
+     * around the previous score and widen it on a fail low or high.
+     */
+    void think(BitboardPosition root, int maxDepth, Control control) {
+        this.control = control;
+        pos.copyFrom(root);
+        evaluator.reset(pos);
+        nodes = 0;
+        qnodes = 0;
+        stopped = false;
+        completedDepth = 0;
+        lastPvLength = 0;
+        bestMove = PackedMove.NONE;
+
+        MoveList rootMoves = moveLists[0];
+        MoveGenerator.generateLegalMoves(pos, rootMoves);
+        if (rootMoves.isEmpty()) return;
+        if (rootMoves.size() == 1) {
+            // A forced reply needs no search.
+            bestMove = rootMoves.get(0);
+            return;
+        }
+        orderer.newSearch();
+        orderer.score(pos, rootMoves, PackedMove.NONE, 0, PackedMove.NONE);
+        for (int i = 0; i < rootMoves.size(); i++) {
+            MoveOrderer.pickNext(rootMoves, i);
+        }
+
+        int score = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            if (skipsDepth(depth)) continue;
+            int delta = ASPIRATION_WINDOW;
+            int alpha = depth >= ASPIRATION_MIN_DEPTH ? Math.max(-INFINITY, score - delta) : -INFINITY;
+            int beta = depth >= ASPIRATION_MIN_DEPTH ? Math.min(INFINITY, score + delta) : INFINITY;
+            int result;
+            while (true) {
+                result = searchRoot(rootMoves, depth, alpha, beta);
+                if (stopped) break;
+                if (result <= alpha && alpha > -INFINITY) {
+                    alpha = Math.max(-INFINITY, alpha - delta);
+                } else if (result >= beta && beta < INFINITY) {
+                    beta = Math.min(INFINITY, beta + delta);
+                } else {
+                    break;
+                }
+                delta *= 2;
+            }
+            if (stopped) {
+                // Without a finished iteration, take the best of the moves depth 1 managed to score.
+                if (completedDepth == 0 && id == 0) bestMove = rootMoves.get(0);
+                break;
+            }
+            score = result;
+            bestMove = rootMoves.get(0);
+            completedDepth = depth;
+            lastPvLength = pvLength[0];
+            System.arraycopy(pvTable[0], 0, lastPv, 0, lastPvLength);
+            if (id == 0 && (control.softLimitReached() || mateWithin(score, depth))) break;
+        }
+    }
+
+    private boolean skipsDepth(int depth) {
+        if (id == 0) return false;
+        int j = (id - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[j]) / SKIP_SIZE[j]) % 2 != 0;
+    }
+
+    /** A mate score whose distance in plies a search of this depth has already covered. */
+    private static boolean mateWithin(int score, int depth) {
+        return Math.abs(score) >= MATE_BOUND && MATE - Math.abs(score) <= depth;
+    }
+
+    /**
+     * One root iteration within [alpha, beta]; moves the best move to the front of
+     * rootMoves so the next iteration searches it first. Moves whose search was
+     * interrupted by the budget are not counted. On a fail low every score is only
+     * an upper bound, so the order is left as it was and the previous best move
+     * stays first for the re-search.
+     */
+    private int searchRoot(MoveList rootMoves, int depth, int alpha, int beta) {
+        pvLength[0] = 0;
+        int originalAlpha = alpha;
+        int bestIndex = 0;
+        int bestScore = -INFINITY;
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            currentLine[0] = move;
+            makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -search(pos, depth - 1, 1, -beta, -alpha, true, true);
+            } else {
+                score = -search(pos, depth - 1, 1, -alpha - 1, -alpha, false, true);
+                if (score > alpha && score < beta) {
+                    score = -search(pos, depth - 1, 1, -beta, -alpha, true, true);
+                }
+            }
+            unmakeMove(move);
+            if (stopped) break;
+            if (score > bestScore) {
+                bestScore = score;
+                bestIndex = i;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(0, move);
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        if (bestScore > originalAlpha) {
+            for (int i = bestIndex; i > 0; i--) {
+                rootMoves.swap(i, i - 1);
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Negamax principal variation search; scores are from the side to move's view.
+     * The first move of a node gets the full window, later ones a null window and a
+     * re-search only if they beat alpha. Hash cutoffs are taken at non-PV nodes only
+     * so the PV table stays complete.
+     *
+     * Non-PV nodes try a null move first: if passing the turn still fails high at
+     * reduced depth, the node is cut. Sides with only pawns and king skip it, as
+     * zugzwang is common there. Late quiet moves are searched at a depth reduced by
+     * REDUCTIONS and re-searched at full depth if they beat alpha.
+     */
+    private int search(BitboardPosition pos, int depth, int ply, int alpha, int beta, boolean pvNode, boolean allowNull) {
+        pvLength[ply] = 0;
+        if (depth <= 0) {
+            return quiescence(pos, ply, alpha, beta);
+        }
+        if ((++nodes & 1023) == 0 && control.tick(1024)) stopped = true;
+        if (stopped) return 0;
+        if (ply >= MAX_PLY) {
+            return evaluate(pos);
+        }
+        long key = pos.key();
+        long entry = tt.probe(key);
+        if (!pvNode && entry != TranspositionTable.MISS && TranspositionTable.depth(entry) >= depth) {
+            int ttScore = scoreFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.BOUND_EXACT
+                || (bound == TranspositionTable.BOUND_LOWER && ttScore >= beta)
+                || (bound == TranspositionTable.BOUND_UPPER && ttScore <= alpha)) {
+                return ttScore;
+            }
+        }
+        int us = pos.sideToMove();
+        boolean inCheck = pos.isInCheck(us);
+
+        if (!pvNode && allowNull && !inCheck && depth >= NULL_MOVE_MIN_DEPTH
+            && hasPieces(pos, us) && beta < MATE_BOUND && evaluate(pos) >= beta) {
+            int r = 2 + depth / 4;
+            currentLine[ply] = PackedMove.NONE;
+            evaluator.makeNullMove(pos);
+            pos.makeNullMove();
+            int score = -search(pos, depth - 1 - r, ply + 1, -beta, -beta + 1, false, false);
+            pos.unmakeNullMove();
+            evaluator.unmakeNullMove(pos);
+            if (stopped) return 0;
+            if (score >= beta) {
+                return score >= MATE_BOUND ? beta : score;
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        MoveGenerator.generateLegalMoves(pos, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int prevMove = currentLine[ply - 1];
+        int hashMove = entry != TranspositionTable.MISS ? TranspositionTable.move(entry) : PackedMove.NONE;
+        orderer.score(pos, moves, hashMove, ply, prevMove);
+        int alphaOrig = alpha;
+        int bestMove = PackedMove.NONE;
+        int best = -INFINITY;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = MoveOrderer.pickNext(moves, i);
+            boolean quiet = !MoveOrderer.isTactical(move);
+            currentLine[ply] = move;
+            makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -search(pos, depth - 1, ply + 1, -beta, -alpha, pvNode, true);
+            } else {
+                int reduction = 0;
+                if (depth >= LMR_MIN_DEPTH && i >= LMR_MIN_MOVES && quiet && !inCheck
+                    && !pos.isInCheck(pos.sideToMove())) {
+                    reduction = REDUCTIONS[Math.min(depth, MAX_PLY)][Math.min(i, MoveList.CAPACITY - 1)];
+                    if (pvNode) reduction--;
+                    reduction = Math.max(0, Math.min(reduction, depth - 2));
+                }
+                score = -search(pos, depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, false, true);
+                if (reduction > 0 && score > alpha) {
+                    score = -search(pos, depth - 1, ply + 1, -alpha - 1, -alpha, false, true);
+                }
+                if (pvNode && score > alpha && score < beta) {
+                    score = -search(pos, depth - 1, ply + 1, -beta, -alpha, true, true);
+                }
+            }
+            unmakeMove(move);
+            if (stopped) return 0;
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (pvNode) updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (quiet) orderer.updateQuietCutoff(pos, moves, i, depth, ply, prevMove);
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = best <= alphaOrig ? TranspositionTable.BOUND_UPPER
+            : best >= beta ? TranspositionTable.BOUND_LOWER
+            : TranspositionTable.BOUND_EXACT;
+        tt.store(key, depth, bound, scoreToTable(best, ply), bestMove);
+        return best;
+    }
+
+    /** Whether the side has anything besides pawns and its king; null move is unsafe otherwise. */
+    private static boolean hasPieces(BitboardPosition pos, int color) {
+        return (pos.occupancy(color) & ~pos.pieces(BitboardPosition.PAWN) & ~pos.pieces(BitboardPosition.KING)) != 0;
+    }
+
+    /**
+     * Resolves captures and promotions until the position is quiet, so the static
+     * evaluation never lands in the middle of an exchange. The side to move may
+     * stand pat on its evaluation; captures that cannot lift it back to alpha even
+     * with DELTA_MARGIN to spare, or that lose material by SEE, are skipped. In
+     * check, all evasions are searched instead (when enabled) and having none is mate.
+     */
+    private int quiescence(BitboardPosition pos, int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        qnodes++;
+        if ((++nodes & 1023) == 0 && control.tick(1024)) stopped = true;
+        if (stopped) return 0;
+        if (ply >= MAX_PLY) {
+            return evaluate(pos);
+        }
+        boolean inCheck = quiescenceChecks && pos.isInCheck(pos.sideToMove());
+        MoveList moves = moveLists[ply];
+        int best;
+        int standPat = 0;
+        if (inCheck) {
+            MoveGenerator.generateLegalMoves(pos, moves);
+            if (moves.isEmpty()) return -MATE + ply;
+            best = -INFINITY;
+        } else {
+            standPat = evaluate(pos);
+            if (standPat >= beta) return standPat;
+            if (standPat > alpha) alpha = standPat;
+            best = standPat;
+            MoveGenerator.generateLegalCaptures(pos, moves);
+        }
+        MoveOrderer.scoreCaptures(pos, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = MoveOrderer.pickNext(moves, i);
+            if (!inCheck) {
+                if (standPat + MoveOrderer.captureGain(pos, move) + DELTA_MARGIN <= alpha) continue;
+                if (!See.seeGE(pos, move, 0)) continue;
+            }
+            makeMove(move);
+            int score = -quiescence(pos, ply + 1, -beta, -alpha);
+            unmakeMove(move);
+            if (stopped) return 0;
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Mate scores are stored relative to the node so they stay valid at any ply. */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score + ply;
+        if (score <= -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score - ply;
+        if (score <= -MATE_BOUND) return score + ply;
+        return score;
+    }
+
+    /** Triangular PV update: this ply's line is the move followed by the child's line. */
+    private void updatePv(int ply, int move) {
+        int[] line = pvTable[ply];
+        line[0] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], 0, line, 1, childLength);
+        pvLength[ply] = childLength + 1;
+    }
+
+    private void makeMove(int move) {
+        evaluator.makeMove(pos, move);
+        pos.makeMove(move);
+    }
+
+    private void unmakeMove(int move) {
+        pos.unmakeMove(move);
+        evaluator.unmakeMove(pos, move);
+    }
+
+    private int evaluate(BitboardPosition pos) {
+        if (evalCache == null) return evaluator.evaluate(pos);
+        long key = pos.key();
+        long entry = evalCache.probe(key);
+        if (entry != 0L) return EvalCache.score(entry);
+        int score = evaluator.evaluate(pos);
+        evalCache.store(key, score);
+        return score;
+    }
+}
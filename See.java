@@ -0,0 +1,134 @@
+package ashes;
+
+/**
+ * Static exchange evaluation: the material outcome of the capture sequence a move
+ * starts on its target square, with both sides recapturing least valuable piece
+ * first and either side free to stop. Sliders uncovered behind a capturer (x-rays)
+ * join in as the square's occupancy thins out. Pins are ignored, and nothing may
+ * recapture on the banned square. Values are BitboardPosition.PIECE_VALUES, with
+ * the king counted as unbounded so it only ever takes last.
+ *
+ * An instance owns the swap-list scratch that see() needs, so one is kept per
+ * searching thread; seeGE() needs no scratch at all.
+ */
+public final class See {
+    private static final int KING_VALUE = 20_000;
+
+    private final int[] gain = new int[32];
+
+    /** Exchange value of the move for the side playing it, in centipawns. */
+    public int see(BitboardPosition pos, int move) {
+        if (PackedMove.isCastle(move)) return 0;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int us = BitboardPosition.colorOfCode(pos.pieceAt(from));
+
+        long occ = pos.occupied() ^ Bitboards.bit(from);
+        gain[0] = victimValue(pos, move, us);
+        int onSquare = value(pos.pieceAt(from) & 7);
+        if (PackedMove.isEnPassant(move)) {
+            occ ^= Bitboards.bit((from & ~7) | (to & 7));
+        }
+        if (PackedMove.isPromotion(move)) {
+            onSquare = value(PackedMove.promotionType(move));
+            gain[0] += onSquare - value(BitboardPosition.PAWN);
+        }
+        if (to == pos.bannedSquare()) return gain[0];
+
+        long attackers = pos.attackersTo(to, occ) & occ;
+        int side = us ^ 1;
+        int d = 0;
+        while (d < gain.length - 1) {
+            long mine = attackers & pos.occupancy(side);
+            if (mine == 0) break;
+            int type = leastValuable(pos, mine);
+            if (type == BitboardPosition.KING && (attackers & pos.occupancy(side ^ 1)) != 0) break;
+            d++;
+            gain[d] = onSquare - gain[d - 1];
+            long attacker = Long.lowestOneBit(mine & pos.pieces(type));
+            occ ^= attacker;
+            attackers = (attackers | xrays(pos, to, occ, type)) & occ;
+            onSquare = value(type);
+            side ^= 1;
+        }
+        while (d > 0) {
+            gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+            d--;
+        }
+        return gain[0];
+    }
+
+    /** Whether see(move) >= threshold, decided without the full swap list. */
+    public static boolean seeGE(BitboardPosition pos, int move, int threshold) {
+        if (PackedMove.isCastle(move)) return 0 >= threshold;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int us = BitboardPosition.colorOfCode(pos.pieceAt(from));
+
+        int onSquare = value(pos.pieceAt(from) & 7);
+        int swap = victimValue(pos, move, us) - threshold;
+        if (PackedMove.isPromotion(move)) {
+            onSquare = value(PackedMove.promotionType(move));
+            swap += onSquare - value(BitboardPosition.PAWN);
+        }
+        if (swap < 0) return false;
+        swap = onSquare - swap;
+        if (swap <= 0 || to == pos.bannedSquare()) return true;
+
+        long occ = pos.occupied() & ~Bitboards.bit(from) & ~Bitboards.bit(to);
+        if (PackedMove.isEnPassant(move)) {
+            occ ^= Bitboards.bit((from & ~7) | (to & 7));
+        }
+        long attackers = pos.attackersTo(to, occ) & occ;
+        int side = us;
+        boolean result = true;
+        while (true) {
+            side ^= 1;
+            long mine = attackers & pos.occupancy(side);
+            if (mine == 0) break;
+            result = !result;
+            int type = leastValuable(pos, mine);
+            if (type == BitboardPosition.KING) {
+                // The king may only take if the other side has nothing left to recapture with.
+                return (attackers & pos.occupancy(side ^ 1)) != 0 ? !result : result;
+            }
+            swap = value(type) - swap;
+            if (swap < (result ? 1 : 0)) break;
+            occ ^= Long.lowestOneBit(mine & pos.pieces(type));
+            attackers = (attackers | xrays(pos, to, occ, type)) & occ;
+        }
+        return result;
+    }
+
+    private static int victimValue(BitboardPosition pos, int move, int us) {
+        if (PackedMove.isEnPassant(move)) return value(BitboardPosition.PAWN);
+        int code = pos.pieceAt(PackedMove.to(move));
+        if (code == BitboardPosition.EMPTY || BitboardPosition.colorOfCode(code) == us) return 0;
+        return value(code & 7);
+    }
+
+    private static int leastValuable(BitboardPosition pos, long mine) {
+        for (int type = BitboardPosition.PAWN; type < BitboardPosition.KING; type++) {
+            if ((mine & pos.pieces(type)) != 0) return type;
+        }
+        return BitboardPosition.KING;
+    }
+
+    /** Sliders that now see the square through the piece that just left it. */
+    private static long xrays(BitboardPosition pos, int to, long occ, int type) {
+        long x = 0L;
+        if (type == BitboardPosition.PAWN || type == BitboardPosition.BISHOP || type == BitboardPosition.QUEEN) {
+            x |= SlidingAttacks.bishopAttacks(to, occ)
+                & (pos.pieces(BitboardPosition.BISHOP) | pos.pieces(BitboardPosition.QUEEN));
+        }
+        if (type == BitboardPosition.ROOK || type == BitboardPosition.QUEEN) {
+            x |= SlidingAttacks.rookAttacks(to, occ)
+                & (pos.pieces(BitboardPosition.ROOK) | pos.pieces(BitboardPosition.QUEEN));
+        }
+        return x;
+    }
+
+    private static int value(int type) {
+        return type == BitboardPosition.KING ? KING_VALUE : BitboardPosition.PIECE_VALUES[type];
+    }
+}
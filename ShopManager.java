@@ -36,7 +36,7 @@ public class ShopManager {
     private void initializeFreePawns() {
         nextRound.clear();
         for (int i = 0; i < FREE_PAWNS; i++) {
-            nextRound.add(new Pawn(true));
+            nextRound.add(Pawn.of(true));
         }
         System.out.println("Initialized with " + FREE_PAWNS + " free pawns");
     }
@@ -53,7 +53,7 @@ public class ShopManager {
             for (int c = 0; c < 8; c++) {
                 Piece p = state.board[r][c];
                 if (p != null && p.isWhite() && !(p instanceof King)) {
-                    survivors.add(p.clone());
+                    survivors.add(p);
                     if (p instanceof Pawn) survivingPawns++;
                     System.out.println("  Survived: " + p.getName() + " at (" + r + "," + c + ")");
                 }
@@ -64,7 +64,7 @@ public class ShopManager {
         System.out.println("Surviving pawns: " + survivingPawns + ", need to add: " + pawnsNeeded);
 
         for (int i = 0; i < pawnsNeeded; i++) {
-            nextRound.add(new Pawn(true));
+            nextRound.add(Pawn.of(true));
             System.out.println("  Added FREE pawn #" + (i + 1));
         }
 
@@ -135,11 +135,11 @@ public class ShopManager {
 
     private Piece create(String type, boolean white) {
         return switch (type) {
-            case "Pawn"    -> new Pawn(white);
-            case "Knight"  -> new Knight(white);
-            case "Bishop"  -> new Bishop(white);
-            case "Rook"    -> new Rook(white);
-            case "Queen"   -> new Queen(white);
+            case "Pawn"    -> Pawn.of(white);
+            case "Knight"  -> Knight.of(white);
+            case "Bishop"  -> Bishop.of(white);
+            case "Rook"    -> Rook.of(white);
+            case "Queen"   -> Queen.of(white);
             default        -> null;
         };
     }
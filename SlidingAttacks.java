@@ -0,0 +1,155 @@
+package ashes;
+
+/**
+ * Magic-bitboard attack tables for rooks, bishops and queens.
+ * Magics are searched once at class load with a fixed seed, so the tables are
+ * identical on every run and each lookup is a mask, a multiply and a shift.
+ */
+public final class SlidingAttacks {
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    /** Squares strictly between two aligned squares, 0 if they share no line. */
+    private static final long[][] BETWEEN = new long[64][64];
+    /** Full line through two aligned squares (edge to edge), 0 if not aligned. */
+    private static final long[][] LINE = new long[64][64];
+
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            initSquare(sq, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_TABLE);
+            initSquare(sq, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_TABLE);
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) continue;
+                long bb = Bitboards.bit(b);
+                long ba = Bitboards.bit(a);
+                if ((rookAttacks(a, 0L) & bb) != 0) {
+                    BETWEEN[a][b] = rookAttacks(a, bb) & rookAttacks(b, ba);
+                    LINE[a][b] = (rookAttacks(a, 0L) & rookAttacks(b, 0L)) | ba | bb;
+                } else if ((bishopAttacks(a, 0L) & bb) != 0) {
+                    BETWEEN[a][b] = bishopAttacks(a, bb) & bishopAttacks(b, ba);
+                    LINE[a][b] = (bishopAttacks(a, 0L) & bishopAttacks(b, 0L)) | ba | bb;
+                }
+            }
+        }
+    }
+
+    private SlidingAttacks() {}
+
+    public static long rookAttacks(int sq, long occupied) {
+        return ROOK_TABLE[sq][(int) (((occupied & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq])];
+    }
+
+    public static long bishopAttacks(int sq, long occupied) {
+        return BISHOP_TABLE[sq][(int) (((occupied & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq])];
+    }
+
+    public static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    private static void initSquare(int sq, int[][] dirs, long[] masks, long[] magics, int[] shifts, long[][] tables) {
+        long mask = relevantMask(sq, dirs);
+        int bits = Bitboards.popCount(mask);
+        int size = 1 << bits;
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = slowAttacks(sq, subset, dirs);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] table = new long[size];
+        int[] epoch = new int[size];
+        int shift = 64 - bits;
+        for (int attempt = 1; ; attempt++) {
+            long magic = nextSparse();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) continue;
+            boolean ok = true;
+            for (int i = 0; i < size && ok; i++) {
+                int idx = (int) ((occupancies[i] * magic) >>> shift);
+                if (epoch[idx] != attempt) {
+                    epoch[idx] = attempt;
+                    table[idx] = attacks[i];
+                } else if (table[idx] != attacks[i]) {
+                    ok = false;
+                }
+            }
+            if (ok) {
+                masks[sq] = mask;
+                magics[sq] = magic;
+                shifts[sq] = shift;
+                tables[sq] = table;
+                return;
+            }
+        }
+    }
+
+    private static long relevantMask(int sq, int[][] dirs) {
+        long mask = 0L;
+        int row = Bitboards.row(sq);
+        int col = Bitboards.col(sq);
+        for (int[] d : dirs) {
+            int r = row + d[0];
+            int c = col + d[1];
+            while (Square.insideBoard(r + d[0], c + d[1])) {
+                mask |= Bitboards.bit(Bitboards.square(r, c));
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slowAttacks(int sq, long occupied, int[][] dirs) {
+        long attacks = 0L;
+        int row = Bitboards.row(sq);
+        int col = Bitboards.col(sq);
+        for (int[] d : dirs) {
+            int r = row + d[0];
+            int c = col + d[1];
+            while (Square.insideBoard(r, c)) {
+                long b = Bitboards.bit(Bitboards.square(r, c));
+                attacks |= b;
+                if ((occupied & b) != 0) break;
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 2685821657736338717L;
+    }
+
+    private static long nextSparse() {
+        return nextRandom() & nextRandom() & nextRandom();
+    }
+}
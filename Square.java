@@ -1,14 +1,21 @@
 package ashes;
 
 import java.io.Serializable;
-import java.util.Objects;
 
 public final class Square implements Comparable<Square>, Serializable {
     private static final long serialVersionUID = 1L;
+    private static final Square[] CACHE = new Square[64];
+
+    static {
+        for (int i = 0; i < 64; i++) {
+            CACHE[i] = new Square(i >>> 3, i & 7);
+        }
+    }
+
     public final int row;
     public final int col;
 
-    public Square(int row, int col) {
+    private Square(int row, int col) {
         if (!insideBoard(row, col)) {
             throw new IllegalArgumentException("Square coordinates out of bounds: row=" + row + " col=" + col);
         }
@@ -27,7 +34,20 @@ public final class Square implements Comparable<Square>, Serializable {
         int col = file - 'a';
         int rankNum = rank - '1' + 1;
         int row = 8 - rankNum;
-        return new Square(row, col);
+        return of(row, col);
+    }
+
+    /** Canonical instance for the given coordinates; squares are immutable and shared. */
+    public static Square of(int row, int col) {
+        if (!insideBoard(row, col)) {
+            throw new IllegalArgumentException("Square coordinates out of bounds: row=" + row + " col=" + col);
+        }
+        return CACHE[(row << 3) | col];
+    }
+
+    /** Canonical instance for a 0..63 index laid out as row * 8 + col. */
+    public static Square of(int index) {
+        return CACHE[index];
     }
 
     public String toAlgebraic() {
@@ -73,7 +93,7 @@ public final class Square implements Comparable<Square>, Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return (row << 3) | col;
     }
 
     @Override
@@ -81,9 +101,9 @@ public final class Square implements Comparable<Square>, Serializable {
         return "Square{" + toAlgebraic() + " r=" + row + " c=" + col + "}";
     }
 
-    public static Square a1() { return new Square(7, 0); }
+    public static Square a1() { return of(7, 0); }
 
-    public static Square h8() { return new Square(0, 7); }
+    public static Square h8() { return of(0, 7); }
 
     public static Square[] fromUCI(String uci) {
         if (uci == null || uci.length() < 4) return null;
@@ -102,4 +122,8 @@ public final class Square implements Comparable<Square>, Serializable {
             return null;
         }
     }
+
+    private Object readResolve() {
+        return of(row, col);
+    }
 }
\ No newline at end of file
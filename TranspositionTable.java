@@ -0,0 +1,119 @@
+package ashes;
+
+/**
+ * Fixed-size transposition table in two primitive long arrays. Each bucket holds
+ * two entries: slot 0 is depth-preferred, slot 1 is always-replace. An entry is
+ * a packed data word plus {@code key ^ data}, so a probe only accepts an entry
+ * whose two halves were written together (the lockless XOR trick). Threads can
+ * probe and store concurrently without locks; a torn entry just reads as a miss.
+ */
+public final class TranspositionTable {
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_EXACT = 1;
+    /** Score is a lower bound (the search failed high). */
+    public static final int BOUND_LOWER = 2;
+    /** Score is an upper bound (the search failed low). */
+    public static final int BOUND_UPPER = 3;
+
+    /** Returned by probe() when the position is not in the table. */
+    public static final long MISS = 0L;
+
+    private static final int ENTRY_BYTES = 16;
+
+    // data layout: move 0-15, score 16-47, depth 48-55, bound 56-57, age 58-63
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int age;
+
+    public TranspositionTable(int sizeMb) {
+        long entries = Math.max(2L, (long) Math.max(1, sizeMb) * 1024 * 1024 / ENTRY_BYTES);
+        int buckets = Integer.highestOneBit((int) Math.min(entries / 2, 1 << 30));
+        keys = new long[buckets * 2];
+        data = new long[buckets * 2];
+        bucketMask = buckets - 1;
+    }
+
+    /** Starts a new search generation; entries from older searches become preferred victims. */
+    public void newSearch() {
+        age = (age + 1) & 63;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(keys, 0L);
+        java.util.Arrays.fill(data, 0L);
+        age = 0;
+    }
+
+    /** The entry's data word for this key, or MISS. Decode it with the static accessors. */
+    public long probe(long key) {
+        int i = index(key);
+        long d = data[i];
+        if ((keys[i] ^ d) == key && d != MISS) return d;
+        d = data[i + 1];
+        if ((keys[i + 1] ^ d) == key && d != MISS) return d;
+        return MISS;
+    }
+
+    public void store(long key, int depth, int bound, int score, int move) {
+        int i = index(key);
+        long d0 = data[i];
+        boolean sameKey0 = (keys[i] ^ d0) == key;
+        boolean sameKey1 = (keys[i + 1] ^ data[i + 1]) == key;
+        if (move == PackedMove.NONE) {
+            // Keep the best move we already know for this position.
+            if (sameKey0) move = move(d0);
+            else if (sameKey1) move = move(data[i + 1]);
+        }
+        long d = pack(depth, bound, score, move, age);
+
+        int slot;
+        if (sameKey0 || d0 == MISS || depth >= depth(d0) || age(d0) != age) {
+            slot = i;
+            if (!sameKey0 && d0 != MISS) {
+                // Demote the displaced depth-preferred entry rather than losing it.
+                write(i + 1, keys[i] ^ d0, d0);
+            }
+        } else {
+            slot = i + 1;
+        }
+        write(slot, key, d);
+    }
+
+    /** Permille of sampled slots holding entries from the current search. */
+    public int hashfull() {
+        int n = Math.min(1000, data.length);
+        int used = 0;
+        for (int i = 0; i < n; i++) {
+            if (data[i] != MISS && age(data[i]) == age) used++;
+        }
+        return used * 1000 / n;
+    }
+
+    public static int move(long data) { return (int) (data & 0xFFFF); }
+
+    public static int score(long data) { return (int) (data >>> 16); }
+
+    public static int depth(long data) { return (int) ((data >>> 48) & 0xFF); }
+
+    public static int bound(long data) { return (int) ((data >>> 56) & 3); }
+
+    private static int age(long data) { return (int) (data >>> 58); }
+
+    private static long pack(int depth, int bound, int score, int move, int age) {
+        return (move & 0xFFFFL)
+            | ((score & 0xFFFFFFFFL) << 16)
+            | ((long) Math.max(0, Math.min(255, depth)) << 48)
+            | ((long) bound << 56)
+            | ((long) age << 58);
+    }
+
+    private void write(int slot, long key, long d) {
+        data[slot] = d;
+        keys[slot] = key ^ d;
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) << 1;
+    }
+}
@@ -122,29 +122,17 @@ public class Utils {
         return row >= 0 && row < 8 && col >= 0 && col < 8;
     }
 
+    /** Pieces are shared immutable instances, so a board copy only copies the references. */
     public static Piece[][] copyBoard(Piece[][] original) {
-        Piece[][] copy = new Piece[8][8];
+        Piece[][] copy = new Piece[8][];
         for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (original[i][j] != null) {
-                    copy[i][j] = original[i][j].clone();
-                }
-            }
+            copy[i] = original[i].clone();
         }
         return copy;
     }
 
     public static int countPieces(GameState state, boolean white) {
-        int count = 0;
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                Piece piece = state.board[i][j];
-                if (piece != null && piece.isWhite() == white) {
-                    count++;
-                }
-            }
-        }
-        return count;
+        return state.getPieceCount(white);
     }
 
     public static void sleep(int millis) {
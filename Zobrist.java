@@ -0,0 +1,90 @@
+package ashes;
+
+import java.util.Random;
+
+/**
+ * 64-bit Zobrist keys for positions. A key covers the pieces, the side to move,
+ * the six castling "moved" flags, the en passant target and the banned square.
+ * GameState and BitboardPosition use the same tables, so equal positions hash
+ * equal in either representation.
+ *
+ * Run with -Dashes.zobrist.debug=true to check every incremental update
+ * against a full recompute.
+ */
+public final class Zobrist {
+    public static final boolean DEBUG = Boolean.getBoolean("ashes.zobrist.debug");
+
+    /** PIECES[color * 6 + type][square] */
+    private static final long[][] PIECES = new long[12][64];
+    private static final long[] MOVED_FLAGS = new long[64];
+    private static final long[] EN_PASSANT = new long[64];
+    private static final long[] BANNED = new long[64];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        Random rng = new Random(0x5EEDC0FFEEL);
+        for (int p = 0; p < 12; p++) {
+            for (int sq = 0; sq < 64; sq++) {
+                PIECES[p][sq] = rng.nextLong();
+            }
+        }
+        for (int i = 1; i < 64; i++) {
+            MOVED_FLAGS[i] = rng.nextLong();
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            EN_PASSANT[sq] = rng.nextLong();
+            BANNED[sq] = rng.nextLong();
+        }
+        BLACK_TO_MOVE = rng.nextLong();
+    }
+
+    private Zobrist() {}
+
+    public static long piece(int color, int type, int sq) {
+        return PIECES[color * 6 + type][sq];
+    }
+
+    /** Key of everything except the pieces. Squares are 0..63 or -1 for none. */
+    public static long stateKey(int sideToMove, int movedFlags, int enPassantSquare, int bannedSquare) {
+        long key = MOVED_FLAGS[movedFlags];
+        if (sideToMove == BitboardPosition.BLACK) key ^= BLACK_TO_MOVE;
+        if (enPassantSquare >= 0) key ^= EN_PASSANT[enPassantSquare];
+        if (bannedSquare >= 0) key ^= BANNED[bannedSquare];
+        return key;
+    }
+
+    public static long compute(BitboardPosition pos) {
+        long key = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            int code = pos.pieceAt(sq);
+            if (code != BitboardPosition.EMPTY) {
+                key ^= piece(BitboardPosition.colorOfCode(code), BitboardPosition.typeOfCode(code), sq);
+            }
+        }
+        return key ^ stateKey(pos.sideToMove(), pos.movedFlags(), pos.enPassantSquare(), pos.bannedSquare());
+    }
+
+    /** Key of the pawns alone, matching BitboardPosition.pawnKey(). */
+    public static long computePawnKey(BitboardPosition pos) {
+        long key = 0L;
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++) {
+            long pawns = pos.pieces(color, BitboardPosition.PAWN);
+            while (pawns != 0) {
+                key ^= piece(color, BitboardPosition.PAWN, Bitboards.lsb(pawns));
+                pawns &= pawns - 1;
+            }
+        }
+        return key;
+    }
+
+    public static long compute(GameState state) {
+        return compute(BitboardPosition.fromGameState(state));
+    }
+
+    static void verify(long incremental, long full, String where) {
+        if (incremental != full) {
+            throw new IllegalStateException("Zobrist key drift in " + where + ": incremental="
+                + Long.toHexString(incremental) + " full=" + Long.toHexString(full));
+        }
+    }
+}
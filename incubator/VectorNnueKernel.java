@@ -0,0 +1,67 @@
+package ashes;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * NnueKernel on the jdk.incubator.vector API. Kept out of the main source
+ * directory because it only compiles with --add-modules jdk.incubator.vector;
+ * NnueKernel.forPlatform() loads it by name and falls back to ScalarNnueKernel
+ * when it is missing.
+ */
+final class VectorNnueKernel implements NnueKernel {
+    private static final VectorSpecies<Short> S = ShortVector.SPECIES_PREFERRED;
+    /** Same lane count as S, for widening the int8 output weights. */
+    private static final VectorSpecies<Byte> B =
+        VectorSpecies.of(byte.class, VectorShape.forBitSize(S.vectorBitSize() / 2));
+    /** Half of S's lanes, as ints, for summing the products without overflow. */
+    private static final VectorSpecies<Integer> I =
+        VectorSpecies.of(int.class, VectorShape.forBitSize(S.vectorBitSize()));
+
+    @Override
+    public void add(short[] acc, short[] weights, int offset, int n) {
+        int i = 0;
+        for (int bound = S.loopBound(n); i < bound; i += S.length()) {
+            ShortVector.fromArray(S, acc, i).add(ShortVector.fromArray(S, weights, offset + i)).intoArray(acc, i);
+        }
+        for (; i < n; i++) {
+            acc[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void sub(short[] acc, short[] weights, int offset, int n) {
+        int i = 0;
+        for (int bound = S.loopBound(n); i < bound; i += S.length()) {
+            ShortVector.fromArray(S, acc, i).sub(ShortVector.fromArray(S, weights, offset + i)).intoArray(acc, i);
+        }
+        for (; i < n; i++) {
+            acc[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int dotClippedRelu(short[] acc, byte[] weights, int offset, int n) {
+        IntVector sum = IntVector.zero(I);
+        int i = 0;
+        for (int bound = S.loopBound(n); i < bound; i += S.length()) {
+            ShortVector a = ShortVector.fromArray(S, acc, i).max((short) 0).min((short) NnueNetwork.QA);
+            ShortVector w = (ShortVector) ByteVector.fromArray(B, weights, offset + i)
+                .convertShape(VectorOperators.B2S, S, 0);
+            // QA * 127 still fits in a short, so only the sum needs widening.
+            ShortVector p = a.mul(w);
+            sum = sum.add(p.convertShape(VectorOperators.S2I, I, 0))
+                .add(p.convertShape(VectorOperators.S2I, I, 1));
+        }
+        int total = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            int a = Math.max(0, Math.min(NnueNetwork.QA, acc[i]));
+            total += a * weights[offset + i];
+        }
+        return total;
+    }
+}